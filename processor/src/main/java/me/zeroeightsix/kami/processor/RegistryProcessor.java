@@ -0,0 +1,166 @@
+package me.zeroeightsix.kami.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates {@code ModuleRegistry} and {@code CommandRegistry} at compile time, so KAMI doesn't have to scan its own
+ * classpath at startup, as well as {@code Modules}, holding a typed handle for every module.
+ * <p>
+ * Modules are all concrete {@code Module} subclasses in {@code module.modules} that carry {@code @Module.Info}; commands
+ * are all concrete {@code Command} subclasses in {@code command.commands}.
+ */
+@SupportedAnnotationTypes("*")
+public class RegistryProcessor extends AbstractProcessor {
+
+    private static final String MODULE = "me.zeroeightsix.kami.module.Module";
+    private static final String MODULE_INFO = "me.zeroeightsix.kami.module.Module.Info";
+    private static final String MODULE_PACKAGE = "me.zeroeightsix.kami.module.modules";
+    private static final String COMMAND = "me.zeroeightsix.kami.command.Command";
+    private static final String COMMAND_PACKAGE = "me.zeroeightsix.kami.command.commands";
+
+    private final Set<String> modules = new TreeSet<>();
+    private final Set<String> commands = new TreeSet<>();
+    private boolean generated = false;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || roundEnv.processingOver()) return false;
+
+        TypeElement module = processingEnv.getElementUtils().getTypeElement(MODULE);
+        TypeElement command = processingEnv.getElementUtils().getTypeElement(COMMAND);
+        if (module == null || command == null) return false; // Not compiling KAMI
+
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            if (!isInstantiable(type)) continue;
+            String name = type.getQualifiedName().toString();
+            if (name.startsWith(MODULE_PACKAGE + ".")) {
+                boolean annotated = hasAnnotation(type, MODULE_INFO);
+                boolean subtype = isSubtype(type, module);
+                if (annotated && subtype) modules.add(name);
+                else if (annotated)
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, name + " is annotated with @Module.Info but doesn't extend Module; it won't be registered", type);
+                else if (subtype)
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, name + " has no @Module.Info; it won't be registered", type);
+            } else if (name.startsWith(COMMAND_PACKAGE + ".") && isSubtype(type, command)) {
+                commands.add(name);
+            }
+        }
+
+        try {
+            write("me.zeroeightsix.kami.module", "ModuleRegistry", MODULE, modules);
+            write("me.zeroeightsix.kami.command", "CommandRegistry", COMMAND, commands);
+            writeHandles("me.zeroeightsix.kami.module", "Modules", modules);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Couldn't write registry: " + e.getMessage());
+        }
+        generated = true;
+        return false;
+    }
+
+    private boolean isInstantiable(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS) return false;
+        Set<Modifier> modifiers = type.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) return false;
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        for (ExecutableElement constructor : constructors)
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) return true;
+        return false;
+    }
+
+    private boolean isSubtype(TypeElement type, TypeElement parent) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(parent.asType());
+        return processingEnv.getTypeUtils().isSubtype(processingEnv.getTypeUtils().erasure(type.asType()), erased);
+    }
+
+    private static boolean hasAnnotation(TypeElement type, String annotation) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            Element element = mirror.getAnnotationType().asElement();
+            if (element instanceof TypeElement && ((TypeElement) element).getQualifiedName().contentEquals(annotation)) return true;
+        }
+        return false;
+    }
+
+    private void write(String pack, String name, String type, Set<String> classes) throws IOException {
+        try (PrintWriter writer = new PrintWriter(processingEnv.getFiler().createSourceFile(pack + "." + name).openWriter())) {
+            writer.println("package " + pack + ";");
+            writer.println();
+            writer.println("import java.util.function.BiConsumer;");
+            writer.println("import java.util.function.Supplier;");
+            writer.println();
+            writer.println("/**");
+            writer.println(" * Generated by " + RegistryProcessor.class.getName() + ". Do not edit.");
+            writer.println(" */");
+            writer.println("public final class " + name + " {");
+            writer.println();
+            writer.println("    public static final int SIZE = " + classes.size() + ";");
+            writer.println();
+            writer.println("    private " + name + "() {}");
+            writer.println();
+            writer.println("    public static void registerAll(BiConsumer<Class<? extends " + type + ">, Supplier<? extends " + type + ">> registrar) {");
+            for (String clazz : classes)
+                writer.println("        registrar.accept(" + clazz + ".class, " + clazz + "::new);");
+            writer.println("    }");
+            writer.println();
+            writer.println("}");
+        }
+    }
+
+    private void writeHandles(String pack, String name, Set<String> classes) throws IOException {
+        try (PrintWriter writer = new PrintWriter(processingEnv.getFiler().createSourceFile(pack + "." + name).openWriter())) {
+            writer.println("package " + pack + ";");
+            writer.println();
+            writer.println("/**");
+            writer.println(" * Generated by " + RegistryProcessor.class.getName() + ". Do not edit.");
+            writer.println(" */");
+            writer.println("public final class " + name + " {");
+            writer.println();
+            StringBuilder all = new StringBuilder();
+            for (String clazz : classes) {
+                String constant = toConstant(clazz.substring(clazz.lastIndexOf('.') + 1));
+                writer.println("    public static final ModuleHandle<" + clazz + "> " + constant + " = new ModuleHandle<>(" + clazz + ".class);");
+                all.append(all.length() == 0 ? "" : ", ").append(constant);
+            }
+            writer.println();
+            writer.println("    static final ModuleHandle<?>[] ALL = {" + all + "};");
+            writer.println();
+            writer.println("    private " + name + "() {}");
+            writer.println();
+            writer.println("}");
+        }
+    }
+
+    /**
+     * CameraClip to CAMERA_CLIP, ClickGUI to CLICK_GUI
+     */
+    static String toConstant(String simpleName) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < simpleName.length(); i++) {
+            char c = simpleName.charAt(i);
+            if (i > 0 && Character.isUpperCase(c)) {
+                char previous = simpleName.charAt(i - 1);
+                boolean acronymEnds = Character.isUpperCase(previous) && i + 1 < simpleName.length() && Character.isLowerCase(simpleName.charAt(i + 1));
+                if (!Character.isUpperCase(previous) || acronymEnds) builder.append('_');
+            }
+            builder.append(Character.toUpperCase(c));
+        }
+        return builder.toString();
+    }
+
+}
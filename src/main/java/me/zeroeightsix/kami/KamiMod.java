@@ -4,11 +4,10 @@ import com.google.common.base.Converter;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
-import me.zero.alpine.EventBus;
-import me.zero.alpine.EventManager;
 import me.zeroeightsix.kami.command.Command;
 import me.zeroeightsix.kami.command.CommandManager;
 import me.zeroeightsix.kami.event.ForgeEventProcessor;
+import me.zeroeightsix.kami.event.KamiEventBus;
 import me.zeroeightsix.kami.gui.kami.KamiGUI;
 import me.zeroeightsix.kami.gui.rgui.component.AlignedComponent;
 import me.zeroeightsix.kami.gui.rgui.component.Component;
@@ -24,6 +23,7 @@ import me.zeroeightsix.kami.setting.SettingsRegister;
 import me.zeroeightsix.kami.setting.config.Configuration;
 import me.zeroeightsix.kami.util.Friends;
 import me.zeroeightsix.kami.util.LagCompensator;
+import me.zeroeightsix.kami.util.StartupGraph;
 import me.zeroeightsix.kami.util.Wrapper;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.common.Mod;
@@ -59,7 +59,7 @@ public class KamiMod {
 
     public static final Logger log = LogManager.getLogger("KAMI");
 
-    public static final EventBus EVENT_BUS = new EventManager();
+    public static final KamiEventBus EVENT_BUS = new KamiEventBus();
 
     @Mod.Instance
     private static KamiMod INSTANCE;
@@ -87,28 +87,36 @@ public class KamiMod {
     public void init(FMLInitializationEvent event) {
         KamiMod.log.info("\n\nInitializing KAMI " + MODVER);
 
-        ModuleManager.initialize();
-
-        ModuleManager.getModules().stream().filter(module -> module.alwaysListening).forEach(EVENT_BUS::subscribe);
-        MinecraftForge.EVENT_BUS.register(new ForgeEventProcessor());
-        LagCompensator.INSTANCE = new LagCompensator();
-
-        Wrapper.init();
-
-        guiManager = new KamiGUI();
-        guiManager.initializeGUI();
-
-        commandManager = new CommandManager();
-
-        Friends.initFriends();
-        SettingsRegister.register("commandPrefix", Command.commandPrefix);
-        loadConfiguration();
-        KamiMod.log.info("Settings loaded");
-
-        ModuleManager.updateLookup(); // generate the lookup table after settings are loaded to make custom module names work
-
-        // After settings loaded, we want to let the enabled modules know they've been enabled (since the setting is done through reflection)
-        ModuleManager.getModules().stream().filter(Module::isEnabled).forEach(Module::enable);
+        // Anything touching GL, Minecraft or Forge classes stays on the main thread; only the friend name lookup runs off it
+        new StartupGraph("KAMI")
+                .mainThread("modules", () -> {
+                    ModuleManager.initialize();
+                    ModuleManager.getModules().stream().filter(module -> module.alwaysListening).forEach(EVENT_BUS::subscribe);
+                })
+                .mainThread("events", () -> {
+                    MinecraftForge.EVENT_BUS.register(new ForgeEventProcessor());
+                    LagCompensator.INSTANCE = new LagCompensator();
+                })
+                .mainThread("commands", () -> commandManager = new CommandManager())
+                .mainThread("gui", () -> {
+                    Wrapper.init();
+                    guiManager = new KamiGUI();
+                    guiManager.initializeGUI();
+                }, "modules")
+                .mainThread("config", () -> {
+                    Friends.initFriends();
+                    SettingsRegister.register("commandPrefix", Command.commandPrefix);
+                    loadConfiguration();
+                    KamiMod.log.info("Settings loaded");
+
+                    ModuleManager.updateLookup(); // generate the lookup table after settings are loaded to make custom module names work
+                }, "modules", "gui", "commands")
+                .mainThread("enable", () -> {
+                    // After settings loaded, we want to let the enabled modules know they've been enabled (since the setting is done through reflection)
+                    ModuleManager.getModules().stream().filter(Module::isEnabled).forEach(Module::enable);
+                }, "config", "events")
+                .background("friends", Friends::refreshNames, "config")
+                .run();
 
         KamiMod.log.info("KAMI Mod initialized!\n");
     }
@@ -1,13 +1,10 @@
 package me.zeroeightsix.kami.command;
 
 import me.zeroeightsix.kami.KamiMod;
-import me.zeroeightsix.kami.command.commands.BindCommand;
-import me.zeroeightsix.kami.util.ClassFinder;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 
 public class CommandManager {
 	
@@ -16,19 +13,18 @@ public class CommandManager {
 	public CommandManager() {
 		commands = new ArrayList<>();
 
-		Set<Class> classList = ClassFinder.findClasses(BindCommand.class.getPackage().getName(), Command.class);
-		for (Class s : classList) {
-			if (Command.class.isAssignableFrom(s)){
-				try {
-					Command command = (Command) s.getConstructor().newInstance();
-					commands.add(command);
-				} catch (Exception e) {
-					e.printStackTrace();
-					System.err.println("Couldn't initiate command " + s.getSimpleName() + "! Err: " + e.getClass().getSimpleName() + ", message: " + e.getMessage());
-				}
+		long start = System.currentTimeMillis();
+		// CommandRegistry is generated at compile time by the registry annotation processor
+		CommandRegistry.registerAll((s, constructor) -> {
+			try {
+				Command command = constructor.get();
+				commands.add(command);
+			} catch (Exception e) {
+				e.printStackTrace();
+				System.err.println("Couldn't initiate command " + s.getSimpleName() + "! Err: " + e.getClass().getSimpleName() + ", message: " + e.getMessage());
 			}
-		}
-		KamiMod.log.info("Commands initialised");
+		});
+		KamiMod.log.info("Commands initialised in " + (System.currentTimeMillis() - start) + " ms (" + commands.size() + "/" + CommandRegistry.SIZE + ")");
 	}
 
 	public void callCommand(String command){
@@ -6,6 +6,7 @@ import me.zeroeightsix.kami.command.syntax.ChunkBuilder;
 import me.zeroeightsix.kami.command.syntax.parsers.DependantParser;
 import me.zeroeightsix.kami.command.syntax.parsers.EnumParser;
 import me.zeroeightsix.kami.gui.kami.KamiGUI;
+import me.zeroeightsix.kami.util.Friends;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -76,6 +77,7 @@ public class ConfigCommand extends Command {
         KamiMod.getInstance().guiManager = new KamiGUI();
         KamiMod.getInstance().guiManager.initializeGUI();
         KamiMod.loadConfiguration();
+        Friends.refreshNames();
         Command.sendChatMessage("Configuration reloaded!");
     }
 
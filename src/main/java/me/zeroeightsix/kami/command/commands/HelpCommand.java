@@ -3,7 +3,7 @@ package me.zeroeightsix.kami.command.commands;
 import me.zeroeightsix.kami.KamiMod;
 import me.zeroeightsix.kami.command.Command;
 import me.zeroeightsix.kami.command.syntax.SyntaxChunk;
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 
 import java.util.Arrays;
 
@@ -44,7 +44,7 @@ public class HelpCommand extends Command {
                     "KAMI " + KamiMod.MODVER,
                     "commands&7 to view all available commands",
                     "bind <module> <key>&7 to bind mods",
-                    "&7Press &r" + ModuleManager.getModuleByName("ClickGUI").getBindName() + "&7 to open GUI",
+                    "&7Press &r" + Modules.CLICK_GUI.get().getBindName() + "&7 to open GUI",
                     "prefix <prefix>&r to change the command prefix.",
                     "help <subjects:[subject]> &r for more help."
             });
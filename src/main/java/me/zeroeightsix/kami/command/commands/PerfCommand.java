@@ -0,0 +1,144 @@
+package me.zeroeightsix.kami.command.commands;
+
+import me.zeroeightsix.kami.command.Command;
+import me.zeroeightsix.kami.command.syntax.ChunkBuilder;
+import me.zeroeightsix.kami.command.syntax.parsers.EnumParser;
+import me.zeroeightsix.kami.event.EventPool;
+import me.zeroeightsix.kami.module.ModuleProfiler;
+import me.zeroeightsix.kami.module.Modules;
+import me.zeroeightsix.kami.module.modules.render.RenderBudget;
+import me.zeroeightsix.kami.util.Culling;
+import me.zeroeightsix.kami.util.EntityFlags;
+import me.zeroeightsix.kami.util.ExposureCache;
+import me.zeroeightsix.kami.util.RaycastService;
+import me.zeroeightsix.kami.util.WorldQuery;
+import me.zeroeightsix.kami.util.Wrapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * @see ModuleProfiler
+ */
+public class PerfCommand extends Command {
+
+    private static final String DEFAULT_DUMP_FILE = "KAMIPerformance.csv";
+    private static final int COMPARE_RUNS = 5;
+
+    public PerfCommand() {
+        super("perf", new ChunkBuilder()
+                .append("mode", true, new EnumParser(new String[]{"top", "reset", "dump", "pool", "entities", "culling", "budget", "exposure", "rays", "world"}))
+                .append("argument", false)
+                .build());
+        setDescription("Shows how much time modules spend in their update and render hooks, and how often pooled events were reused entity classifications were shared and how much the frustum culled");
+    }
+
+    @Override
+    public void call(String[] args) {
+        String mode = args[0] == null ? "top" : args[0].toLowerCase();
+        switch (mode) {
+            case "top":
+                int count = 10;
+                if (args.length > 1 && args[1] != null) {
+                    try {
+                        count = Integer.parseInt(args[1]);
+                    } catch (NumberFormatException e) {
+                        Command.sendChatMessage("&b" + args[1] + "&r is not a number");
+                        return;
+                    }
+                }
+                List<ModuleProfiler.Entry> entries = ModuleProfiler.getEntries();
+                if (entries.isEmpty()) {
+                    Command.sendChatMessage("No timings recorded yet.");
+                    return;
+                }
+                String[] lines = new String[Math.min(count, entries.size())];
+                for (int i = 0; i < lines.length; i++) {
+                    ModuleProfiler.Entry entry = entries.get(i);
+                    ModuleProfiler.Histogram h = entry.getTimings().getLifetime();
+                    lines[i] = String.format("&b%s&7.%s&r total &3%s&r p50 &3%s&r p99 &3%s&r max &3%s&r (&8%d calls&r)",
+                            entry.getModule().getName(),
+                            entry.getHook().getName(),
+                            ModuleProfiler.format(h.getTotal()),
+                            ModuleProfiler.format(h.getPercentile(0.5)),
+                            ModuleProfiler.format(h.getPercentile(0.99)),
+                            ModuleProfiler.format(h.getMax()),
+                            h.getCount());
+                }
+                Command.sendStringChatMessage(lines);
+                break;
+            case "reset":
+                ModuleProfiler.reset();
+                EventPool.getPools().forEach(EventPool::resetCounters);
+                EntityFlags.resetCounters();
+                Culling.resetCounters();
+                ExposureCache.resetCounters();
+                RaycastService.INSTANCE.resetCounters();
+                WorldQuery.resetCounters();
+                Command.sendChatMessage("Module timings reset.");
+                break;
+            case "dump":
+                Path path = Paths.get(args.length > 1 && args[1] != null ? args[1] : DEFAULT_DUMP_FILE);
+                try {
+                    ModuleProfiler.dump(path);
+                    Command.sendChatMessage("Timings written to &b" + path.toAbsolutePath().toString());
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    Command.sendChatMessage("Couldn't write timings: " + e.getMessage());
+                }
+                break;
+            case "pool":
+                List<EventPool<?>> pools = EventPool.getPools();
+                String[] poolLines = new String[pools.size()];
+                for (int i = 0; i < poolLines.length; i++) {
+                    EventPool<?> pool = pools.get(i);
+                    // Without pooling, every acquired event would have been an allocation
+                    poolLines[i] = String.format("&b%s&r posted &3%d&r allocated &3%d&r", pool.getName(), pool.getAcquired(), pool.getAllocated());
+                }
+                Command.sendStringChatMessage(poolLines);
+                if (EventPool.DEBUG) Command.sendChatMessage("Event pool debugging is enabled, so events aren't being reused.");
+                break;
+            case "entities":
+                // Without the shared table, every lookup would have classified the entity again
+                Command.sendChatMessage(String.format("Entity classifications: looked up &3%d&r computed &3%d&r", EntityFlags.getLookups(), EntityFlags.getComputed()));
+                break;
+            case "culling":
+                Command.sendChatMessage(String.format("Frustum culling: tested &3%d&r culled &3%d&r", Culling.getTested(), Culling.getCulled()));
+                break;
+            case "budget":
+                if (!Modules.RENDER_BUDGET.isEnabled()) {
+                    Command.sendChatMessage("RenderBudget is disabled.");
+                    break;
+                }
+                RenderBudget budget = Modules.RENDER_BUDGET.get();
+                Command.sendChatMessage(String.format("World render &3%.2fms&r of &3%.2fms&r frames, quality level &3%d",
+                        budget.getAverage(), budget.getFrameAverage(), budget.getLevel()));
+                break;
+            case "exposure":
+                if (args.length > 1 && "compare".equalsIgnoreCase(args[1])) {
+                    if (Wrapper.getPlayer() == null) {
+                        Command.sendChatMessage("Join a world first.");
+                        break;
+                    }
+                    long[] times = Modules.CRYSTAL_AURA.get().compareDamagePaths(COMPARE_RUNS);
+                    Command.sendChatMessage(String.format("CrystalAura on &3%d&r blocks and &3%d&r targets: uncached &3%s&r cached &3%s&r per tick (&8%d runs&r)",
+                            times[2], times[3], ModuleProfiler.format(times[0] / COMPARE_RUNS), ModuleProfiler.format(times[1] / COMPARE_RUNS), COMPARE_RUNS));
+                    break;
+                }
+                // Every lookup past the computed count was a set of ray traces saved
+                Command.sendChatMessage(String.format("Explosion exposures: looked up &3%d&r computed &3%d&r", ExposureCache.getLookups(), ExposureCache.getComputed()));
+                break;
+            case "rays":
+                Command.sendChatMessage(String.format("Ray traces: looked up &3%d&r traced &3%d&r", RaycastService.INSTANCE.getLookups(), RaycastService.INSTANCE.getTraced()));
+                break;
+            case "world":
+                // Every hit skipped the chunk provider; none of the lookups allocated a BlockPos
+                Command.sendChatMessage(String.format("Block lookups: &3%d&r of which &3%d&r in the remembered chunk", WorldQuery.getLookups(), WorldQuery.getChunkHits()));
+                break;
+            default:
+                Command.sendChatMessage("Incorrect mode, please choose from: top, reset, dump, pool, entities, culling, budget, exposure, rays or world");
+        }
+    }
+}
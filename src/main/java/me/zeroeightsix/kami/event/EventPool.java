@@ -0,0 +1,116 @@
+package me.zeroeightsix.kami.event;
+
+import me.zeroeightsix.kami.KamiMod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Reusable instances of a frequently posted event.
+ * <p>
+ * Every thread has its own stack of instances, so events posted from inside a listener (or from the netty thread while
+ * the main thread is posting) each get their own. Use it like this, and never keep a reference to the event once it has
+ * been released:
+ * <pre>
+ * PlayerMoveEvent event = PlayerMoveEvent.POOL.acquire().set(type, x, y, z);
+ * try {
+ *     KamiMod.EVENT_BUS.post(event);
+ * } finally {
+ *     PlayerMoveEvent.POOL.release(event);
+ * }
+ * </pre>
+ * Start the game with {@code -Dkami.debugEventPool=true} to stop reusing events and log a warning whenever a released
+ * event is used, along with the code that used it.
+ */
+public final class EventPool<T extends KamiEvent> {
+
+    public static final boolean DEBUG = Boolean.getBoolean("kami.debugEventPool");
+
+    private static final List<EventPool<?>> POOLS = new CopyOnWriteArrayList<>();
+    private static final Set<Class<?>> REPORTED = ConcurrentHashMap.newKeySet();
+
+    private final String name;
+    private final Supplier<T> factory;
+    private final ThreadLocal<Stack> stacks = ThreadLocal.withInitial(Stack::new);
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+
+    public EventPool(String name, Supplier<T> factory) {
+        this.name = name;
+        this.factory = factory;
+        POOLS.add(this);
+    }
+
+    /**
+     * @return a reset instance, which must be given back through {@link #release(KamiEvent)} once it has been posted
+     */
+    public T acquire() {
+        acquired.increment();
+        Stack stack = stacks.get();
+        T event;
+        if (DEBUG || stack.depth == stack.events.size()) {
+            event = factory.get();
+            allocated.increment();
+            if (stack.depth == stack.events.size()) stack.events.add(event);
+            else stack.events.set(stack.depth, event);
+        } else {
+            event = stack.events.get(stack.depth);
+        }
+        stack.depth++;
+        event.reset();
+        return event;
+    }
+
+    public void release(T event) {
+        Stack stack = stacks.get();
+        if (DEBUG && (stack.depth == 0 || stack.events.get(stack.depth - 1) != event))
+            KamiMod.log.warn("Event " + event.getClass().getName() + " was released out of order", new Throwable());
+        stack.depth--;
+        if (DEBUG) event.released = true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return how many events have been handed out, which is how many would have been allocated without pooling
+     */
+    public long getAcquired() {
+        return acquired.sum();
+    }
+
+    public long getAllocated() {
+        return allocated.sum();
+    }
+
+    public void resetCounters() {
+        acquired.reset();
+        allocated.reset();
+    }
+
+    public static List<EventPool<?>> getPools() {
+        return Collections.unmodifiableList(POOLS);
+    }
+
+    /**
+     * Called in debug mode when a released event is used
+     */
+    static void reportLeak(KamiEvent event) {
+        if (REPORTED.add(event.getClass()))
+            KamiMod.log.warn("Event " + event.getClass().getName() + " was used after it had been released. Listeners must not keep pooled events around.", new Throwable());
+    }
+
+    private class Stack {
+        private final List<T> events = new ArrayList<>();
+        private int depth;
+    }
+
+}
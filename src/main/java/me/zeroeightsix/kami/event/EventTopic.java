@@ -0,0 +1,30 @@
+package me.zeroeightsix.kami.event;
+
+/**
+ * Everything subscribed to one event type. Hot hooks can check {@link #hasListeners()} to skip creating and posting the
+ * event entirely when nobody would receive it:
+ * <pre>
+ * if (AddCollisionBoxToListEvent.TOPIC.hasListeners()) { ... post ... }
+ * </pre>
+ * The handler array is copy-on-write, replaced by {@link KamiEventBus} on subscribe and unsubscribe.
+ */
+public final class EventTopic {
+
+    static final Handler[] NONE = new Handler[0];
+
+    private final Class<?> type;
+    volatile Handler[] handlers = NONE;
+
+    EventTopic(Class<?> type) {
+        this.type = type;
+    }
+
+    public boolean hasListeners() {
+        return handlers.length != 0;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+}
@@ -8,8 +8,13 @@ import me.zeroeightsix.kami.gui.UIRenderer;
 import me.zeroeightsix.kami.gui.kami.KamiGUI;
 import me.zeroeightsix.kami.gui.rgui.component.container.use.Frame;
 import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import me.zeroeightsix.kami.module.modules.render.BossStack;
+import me.zeroeightsix.kami.util.ChunkScanService;
+import me.zeroeightsix.kami.util.EntityFlags;
+import me.zeroeightsix.kami.util.EntityIndex;
 import me.zeroeightsix.kami.util.KamiTessellator;
+import me.zeroeightsix.kami.util.WorldQuery;
 import me.zeroeightsix.kami.util.Wrapper;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.ScaledResolution;
@@ -66,6 +71,17 @@ public class ForgeEventProcessor {
 
     @SubscribeEvent
     public void onTick(TickEvent.ClientTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            // Before the null check, so the queues can't pile up
+            KamiMod.EVENT_BUS.dispatchMainThreadPackets();
+            ChunkScanService.INSTANCE.dispatch();
+        }
+        if (event.phase == TickEvent.Phase.END) {
+            // Before modules query them
+            EntityIndex.INSTANCE.update(Minecraft.getMinecraft().world);
+            EntityFlags.nextTick();
+            WorldQuery.update(Minecraft.getMinecraft().world);
+        }
         if (Wrapper.getPlayer() == null) return;
         ModuleManager.onUpdate();
         KamiMod.getInstance().getGuiManager().callTick(KamiMod.getInstance().getGuiManager());
@@ -79,7 +95,7 @@ public class ForgeEventProcessor {
 
     @SubscribeEvent
     public void onRenderPre(RenderGameOverlayEvent.Pre event) {
-        if (event.getType() == RenderGameOverlayEvent.ElementType.BOSSINFO && ModuleManager.isModuleEnabled("BossStack")) {
+        if (event.getType() == RenderGameOverlayEvent.ElementType.BOSSINFO && Modules.BOSS_STACK.isEnabled()) {
             event.setCanceled(true);
         }
     }
@@ -98,7 +114,7 @@ public class ForgeEventProcessor {
             UIRenderer.renderAndUpdateFrames();
             GL11.glPopMatrix();
             KamiTessellator.releaseGL();
-        } else if (event.getType() == RenderGameOverlayEvent.ElementType.BOSSINFO && ModuleManager.isModuleEnabled("BossStack")) {
+        } else if (event.getType() == RenderGameOverlayEvent.ElementType.BOSSINFO && Modules.BOSS_STACK.isEnabled()) {
             BossStack.render(event);
         }
     }
@@ -145,6 +161,7 @@ public class ForgeEventProcessor {
 
     @SubscribeEvent()
     public void onChunkLoaded(ChunkEvent.Unload event) {
+        if (event.getWorld().isRemote) ChunkScanService.INSTANCE.cancel(event.getChunk().x, event.getChunk().z);
         KamiMod.EVENT_BUS.post(event);
     }
 
@@ -165,6 +182,7 @@ public class ForgeEventProcessor {
 
     @SubscribeEvent
     public void onEntityJoinWorldEvent(EntityJoinWorldEvent entityJoinWorldEvent) {
+        if (entityJoinWorldEvent.getWorld().isRemote) EntityIndex.INSTANCE.onEntityJoin(entityJoinWorldEvent.getEntity());
         KamiMod.EVENT_BUS.post(entityJoinWorldEvent);
     }
 
@@ -0,0 +1,68 @@
+package me.zeroeightsix.kami.event;
+
+import java.util.function.Consumer;
+
+/**
+ * One subscribed listener field or method, as stored in the per-event-type arrays of {@link KamiEventBus}
+ */
+final class Handler {
+
+    final Object owner;
+    final Class<?> eventType;
+    final Consumer<Object> invoker;
+    final int priority;
+    final boolean receiveCancelled;
+    /**
+     * Only for packet listeners, see {@link ThreadMode#MAIN}
+     */
+    final boolean mainThread;
+
+    Handler(Object owner, Class<?> eventType, Consumer<Object> invoker, int priority, boolean receiveCancelled, boolean mainThread) {
+        this.owner = owner;
+        this.eventType = eventType;
+        this.invoker = invoker;
+        this.priority = priority;
+        this.receiveCancelled = receiveCancelled;
+        this.mainThread = mainThread;
+    }
+
+    /**
+     * Calls every handler in order, skipping those that don't want cancelled events once the event is cancelled
+     */
+    static void dispatch(Handler[] handlers, Object event) {
+        if (event instanceof KamiEvent) {
+            KamiEvent kamiEvent = (KamiEvent) event;
+            for (Handler handler : handlers)
+                if (handler.receiveCancelled || !kamiEvent.isCancelled()) handler.invoker.accept(event);
+        } else {
+            for (Handler handler : handlers) handler.invoker.accept(event);
+        }
+    }
+
+    /**
+     * @return a copy of the given array with the handler inserted after all handlers of the same or higher priority
+     */
+    static Handler[] insert(Handler[] handlers, Handler handler) {
+        int index = handlers.length;
+        while (index > 0 && handlers[index - 1].priority < handler.priority) index--;
+        Handler[] result = new Handler[handlers.length + 1];
+        System.arraycopy(handlers, 0, result, 0, index);
+        result[index] = handler;
+        System.arraycopy(handlers, index, result, index + 1, handlers.length - index);
+        return result;
+    }
+
+    /**
+     * @return a copy of the given array without the handlers of the given owner, or the array itself if it has none
+     */
+    static Handler[] removeOwner(Handler[] handlers, Object owner) {
+        int kept = 0;
+        for (Handler handler : handlers) if (handler.owner != owner) kept++;
+        if (kept == handlers.length) return handlers;
+        Handler[] result = new Handler[kept];
+        int i = 0;
+        for (Handler handler : handlers) if (handler.owner != owner) result[i++] = handler;
+        return result;
+    }
+
+}
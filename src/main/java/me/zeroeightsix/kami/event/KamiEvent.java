@@ -1,28 +1,61 @@
 package me.zeroeightsix.kami.event;
 
-import me.zero.alpine.type.Cancellable;
 import me.zeroeightsix.kami.util.Wrapper;
 
 /**
  * Created by 086 on 16/11/2017.
  */
-public class KamiEvent extends Cancellable {
+public class KamiEvent {
 
     private Era era = Era.PRE;
-    private final float partialTicks;
+    private float partialTicks = Float.NaN; // Captured on first use; most listeners never ask for it
+    private boolean cancelled;
+
+    /**
+     * Set by {@link EventPool} in debug mode once this event has been released
+     */
+    boolean released;
 
     public KamiEvent() {
-        partialTicks = Wrapper.getMinecraft().getRenderPartialTicks();
     }
 
     public Era getEra() {
+        checkReleased();
         return era;
     }
 
     public float getPartialTicks() {
+        checkReleased();
+        if (Float.isNaN(partialTicks)) partialTicks = Wrapper.getMinecraft().getRenderPartialTicks();
         return partialTicks;
     }
 
+    public void cancel() {
+        checkReleased();
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Clears all state, so a pooled event can be posted again
+     */
+    protected void reset() {
+        era = Era.PRE;
+        partialTicks = Float.NaN;
+        cancelled = false;
+        released = false;
+    }
+
+    /**
+     * Warns about listeners holding on to pooled events. Free unless {@link EventPool#DEBUG} is set.
+     */
+    protected final void checkReleased() {
+        if (EventPool.DEBUG && released) EventPool.reportLeak(this);
+    }
+
     public enum Era {
         PRE, PERI, POST
     }
@@ -0,0 +1,349 @@
+package me.zeroeightsix.kami.event;
+
+import me.zero.alpine.listener.EventHandler;
+import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.events.PacketEvent;
+import net.minecraft.client.Minecraft;
+import net.minecraft.network.Packet;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * KAMI's event bus.
+ * <p>
+ * Listeners are {@link EventHandler} {@code Listener} fields (just like with Alpine), {@link PacketHandler} packet
+ * listener fields, or {@link Subscribe} methods. What a class listens to is worked out once and cached, so subscribing
+ * and unsubscribing only cost as much as the object has listeners. Posting reaches the listeners of the exact event
+ * type, through a copy-on-write array per type (see {@link EventTopic}).
+ * <p>
+ * Packet events aren't posted like other events: {@link #postSend(Packet)} and {@link #postReceive(Packet)} dispatch
+ * them straight to the listeners of that packet type. {@link ThreadMode#MAIN} packet listeners are handed packets from
+ * other threads through a lock-free queue, drained by {@link #dispatchMainThreadPackets()}. A listener unsubscribed
+ * before the queue is drained doesn't get the packet.
+ */
+public class KamiEventBus {
+
+    private final PacketRouter send = new PacketRouter();
+    private final PacketRouter receive = new PacketRouter();
+
+    /**
+     * Packets waiting for their {@link ThreadMode#MAIN} listeners. Filled from any thread, drained on the main thread.
+     */
+    private final Queue<PendingPacket> mainThreadPackets = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Subscription plans per class, so subscribing doesn't have to go through reflection every time
+     */
+    private final Map<Class<?>, List<Entry>> plans = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, EventTopic> topics = new ConcurrentHashMap<>();
+    /**
+     * The topics each subscribed object has handlers in, so unsubscribing only touches those
+     */
+    private final Map<Object, List<EventTopic>> subscribed = new IdentityHashMap<>();
+
+    /**
+     * @return the topic of the given event type. Only exact types count, as posting only reaches listeners of the exact type.
+     */
+    public EventTopic topic(Class<?> eventType) {
+        return topics.computeIfAbsent(eventType, EventTopic::new);
+    }
+
+    public synchronized void subscribe(Object object) {
+        if (subscribed.containsKey(object)) return;
+
+        List<EventTopic> touched = new ArrayList<>();
+        for (Entry entry : plans.computeIfAbsent(object.getClass(), KamiEventBus::plan)) {
+            Handler handler = entry.bind(object);
+            if (handler == null) continue;
+
+            Class<?>[] packets = entry.packets;
+            // Legacy @EventHandler packet listeners get every packet
+            if (packets == null && PacketEvent.class.isAssignableFrom(handler.eventType)) packets = new Class<?>[]{Packet.class};
+            if (packets != null) {
+                for (Class<?> packet : packets) {
+                    if (handler.eventType.isAssignableFrom(PacketEvent.Send.class)) send.add(packet, handler);
+                    if (handler.eventType.isAssignableFrom(PacketEvent.Receive.class)) receive.add(packet, handler);
+                }
+                continue;
+            }
+
+            EventTopic topic = topic(handler.eventType);
+            topic.handlers = Handler.insert(topic.handlers, handler);
+            if (!touched.contains(topic)) touched.add(topic);
+        }
+        subscribed.put(object, touched);
+    }
+
+    public synchronized void unsubscribe(Object object) {
+        List<EventTopic> touched = subscribed.remove(object);
+        if (touched == null) return;
+        for (EventTopic topic : touched) topic.handlers = Handler.removeOwner(topic.handlers, object);
+        send.remove(object);
+        receive.remove(object);
+    }
+
+    public void post(Object event) {
+        EventTopic topic = topics.get(event.getClass());
+        if (topic != null) Handler.dispatch(topic.handlers, event);
+    }
+
+    /**
+     * Dispatches an outgoing packet to its listeners, using a pooled event.
+     *
+     * @return whether a listener cancelled the packet
+     */
+    public boolean postSend(Packet<?> packet) {
+        Handler[] handlers = send.get(packet.getClass());
+        if (handlers.length == 0) return false;
+        PacketEvent.Send event = PacketEvent.Send.POOL.acquire().set(packet, System.currentTimeMillis());
+        try {
+            dispatchPacket(handlers, event, true);
+            return event.isCancelled();
+        } finally {
+            PacketEvent.Send.POOL.release(event);
+        }
+    }
+
+    /**
+     * Dispatches an incoming packet to its listeners, using a pooled event.
+     *
+     * @return whether a listener cancelled the packet
+     */
+    public boolean postReceive(Packet<?> packet) {
+        Handler[] handlers = receive.get(packet.getClass());
+        if (handlers.length == 0) return false;
+        PacketEvent.Receive event = PacketEvent.Receive.POOL.acquire().set(packet, System.currentTimeMillis());
+        try {
+            dispatchPacket(handlers, event, false);
+            return event.isCancelled();
+        } finally {
+            PacketEvent.Receive.POOL.release(event);
+        }
+    }
+
+    /**
+     * Calls the handlers that can run on this thread, and queues the packet for the rest
+     */
+    private void dispatchPacket(Handler[] handlers, PacketEvent event, boolean send) {
+        boolean deferred = false;
+        int onMainThread = -1; // Only looked up once a main thread handler comes up
+        for (Handler handler : handlers) {
+            if (handler.mainThread) {
+                if (onMainThread == -1) onMainThread = Minecraft.getMinecraft().isCallingFromMinecraftThread() ? 1 : 0;
+                if (onMainThread == 0) {
+                    deferred = true;
+                    continue;
+                }
+            }
+            if (handler.receiveCancelled || !event.isCancelled()) handler.invoker.accept(event);
+        }
+        if (deferred) mainThreadPackets.add(new PendingPacket(event.getPacket(), handlers, send, event.isCancelled(), event.getTime()));
+    }
+
+    /**
+     * Hands queued packets to their {@link ThreadMode#MAIN} listeners. Called on the main thread at the start of every tick.
+     */
+    public void dispatchMainThreadPackets() {
+        PendingPacket pending;
+        while ((pending = mainThreadPackets.poll()) != null) {
+            if (pending.send) {
+                PacketEvent.Send event = PacketEvent.Send.POOL.acquire().set(pending.packet, pending.time);
+                try {
+                    dispatchDeferred(pending, send.get(pending.packet.getClass()), event);
+                } finally {
+                    PacketEvent.Send.POOL.release(event);
+                }
+            } else {
+                PacketEvent.Receive event = PacketEvent.Receive.POOL.acquire().set(pending.packet, pending.time);
+                try {
+                    dispatchDeferred(pending, receive.get(pending.packet.getClass()), event);
+                } finally {
+                    PacketEvent.Receive.POOL.release(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param current the handlers of the packet type now, so those unsubscribed since the packet was queued are skipped
+     */
+    private static void dispatchDeferred(PendingPacket pending, Handler[] current, PacketEvent event) {
+        if (pending.cancelled) event.cancel();
+        for (Handler handler : pending.handlers)
+            if (handler.mainThread && (handler.receiveCancelled || !pending.cancelled) && contains(current, handler))
+                handler.invoker.accept(event);
+    }
+
+    private static boolean contains(Handler[] handlers, Handler handler) {
+        for (Handler h : handlers)
+            if (h == handler) return true;
+        return false;
+    }
+
+    private static class PendingPacket {
+        private final Packet<?> packet;
+        private final Handler[] handlers;
+        private final boolean send;
+        private final boolean cancelled;
+        private final long time;
+
+        private PendingPacket(Packet<?> packet, Handler[] handlers, boolean send, boolean cancelled, long time) {
+            this.packet = packet;
+            this.handlers = handlers;
+            this.send = send;
+            this.cancelled = cancelled;
+            this.time = time;
+        }
+    }
+
+    private static List<Entry> plan(Class<?> clazz) {
+        List<Entry> entries = new ArrayList<>();
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || !Listener.class.isAssignableFrom(field.getType())) continue;
+                if (!field.isAnnotationPresent(EventHandler.class) && !field.isAnnotationPresent(PacketHandler.class)) continue;
+                field.setAccessible(true);
+                entries.add(new FieldEntry(field));
+            }
+            for (Method method : c.getDeclaredMethods()) {
+                if (!method.isAnnotationPresent(Subscribe.class)) continue;
+                if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1) {
+                    System.err.println("Couldn't subscribe " + c.getSimpleName() + "." + method.getName() + ": @Subscribe methods need to be non-static and take exactly one event");
+                    continue;
+                }
+                entries.add(new MethodEntry(method));
+            }
+        }
+        return entries;
+    }
+
+    private abstract static class Entry {
+        /**
+         * The packet types to route to, or null if this isn't a {@link PacketHandler}
+         */
+        Class<?>[] packets;
+        boolean mainThread;
+        int priority = Subscribe.DEFAULT;
+        boolean receiveCancelled = true; // Alpine always called every listener
+
+        Entry(AnnotatedElement element) {
+            Subscribe subscribe = element.getAnnotation(Subscribe.class);
+            if (subscribe != null) {
+                priority = subscribe.priority();
+                receiveCancelled = subscribe.receiveCancelled();
+            }
+        }
+
+        /**
+         * @return a handler calling this listener on the given object, or null if there's nothing to call
+         */
+        abstract Handler bind(Object owner);
+    }
+
+    private static class FieldEntry extends Entry {
+        private final Field field;
+
+        FieldEntry(Field field) {
+            super(field);
+            this.field = field;
+            PacketHandler handler = field.getAnnotation(PacketHandler.class);
+            if (handler != null) {
+                packets = handler.value();
+                mainThread = handler.thread() == ThreadMode.MAIN;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Handler bind(Object owner) {
+            Listener listener;
+            try {
+                listener = (Listener) field.get(owner);
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+                return null;
+            }
+            if (listener == null) return null;
+            Consumer<Object> invoker = listener::invoke;
+            return new Handler(owner, listener.getTarget(), invoker, priority, receiveCancelled, mainThread);
+        }
+    }
+
+    private static class MethodEntry extends Entry {
+        private final Class<?> eventType;
+        /**
+         * Turns an owner into a {@link Consumer} calling the method on it
+         */
+        private final MethodHandle factory;
+
+        MethodEntry(Method method) {
+            super(method);
+            eventType = method.getParameterTypes()[0];
+            factory = createFactory(method, eventType);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Handler bind(Object owner) {
+            Consumer<Object> invoker;
+            try {
+                invoker = (Consumer<Object>) factory.invoke(owner);
+            } catch (Throwable t) {
+                t.printStackTrace();
+                return null;
+            }
+            return new Handler(owner, eventType, invoker, priority, receiveCancelled, false);
+        }
+
+        private static MethodHandle createFactory(Method method, Class<?> eventType) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                // Generates the equivalent of owner -> event -> owner.method((EventType) event)
+                return LambdaMetafactory.metafactory(lookup,
+                        "accept",
+                        MethodType.methodType(Consumer.class, method.getDeclaringClass()),
+                        MethodType.methodType(void.class, Object.class),
+                        lookup.unreflect(method),
+                        MethodType.methodType(void.class, eventType)).getTarget();
+            } catch (Throwable ignored) {
+                // Not accessible from here (e.g. a private method): fall back to a method handle
+            }
+            try {
+                method.setAccessible(true);
+                MethodHandle handle = lookup.unreflect(method).asType(MethodType.methodType(void.class, Object.class, Object.class));
+                return lookup.findStatic(MethodEntry.class, "bindHandle", MethodType.methodType(Consumer.class, MethodHandle.class, Object.class)).bindTo(handle);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Couldn't subscribe " + method, e);
+            }
+        }
+
+        private static Consumer<Object> bindHandle(MethodHandle handle, Object owner) {
+            return event -> {
+                try {
+                    handle.invokeExact(owner, event);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new RuntimeException(t);
+                }
+            };
+        }
+    }
+
+}
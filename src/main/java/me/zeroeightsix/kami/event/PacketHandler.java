@@ -0,0 +1,30 @@
+package me.zeroeightsix.kami.event;
+
+import net.minecraft.network.Packet;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code Listener<PacketEvent.Send>} or {@code Listener<PacketEvent.Receive>} field as only interested in the
+ * given packet types (and their subclasses). Use this instead of {@link me.zero.alpine.listener.EventHandler} on packet
+ * listeners: the listener is then never called for any other packet.
+ * <p>
+ * {@code @EventHandler} packet listeners still work, but are called for every packet, on the IO thread.
+ *
+ * @see KamiEventBus
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface PacketHandler {
+
+    Class<? extends Packet>[] value();
+
+    /**
+     * Listeners that only read packets and then touch game state should use {@link ThreadMode#MAIN}
+     */
+    ThreadMode thread() default ThreadMode.IO;
+
+}
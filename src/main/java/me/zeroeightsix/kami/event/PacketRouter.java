@@ -0,0 +1,112 @@
+package me.zeroeightsix.kami.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps packet classes to the handlers interested in them, for one direction.
+ * <p>
+ * Lookups are lock-free: the table is an open-addressed array keyed by class identity, replaced (never mutated) when
+ * listeners change or a packet class is seen for the first time. A packet class nobody listens to maps to an empty
+ * array, so it costs a single probe.
+ */
+class PacketRouter {
+
+    private final List<Route> routes = new ArrayList<>();
+    private volatile Table table = new Table(64);
+
+    /**
+     * @return the handlers interested in the given packet class, ordered by priority. Do not modify.
+     */
+    Handler[] get(Class<?> packetClass) {
+        Handler[] handlers = table.get(packetClass);
+        return handlers != null ? handlers : resolve(packetClass);
+    }
+
+    synchronized void add(Class<?> packetClass, Handler handler) {
+        routes.add(new Route(packetClass, handler));
+        rebuild();
+    }
+
+    synchronized void remove(Object owner) {
+        if (routes.removeIf(route -> route.handler.owner == owner)) rebuild();
+    }
+
+    private synchronized Handler[] resolve(Class<?> packetClass) {
+        Table current = table;
+        Handler[] handlers = current.get(packetClass);
+        if (handlers != null) return handlers; // Resolved by another thread in the meantime
+        handlers = collect(packetClass);
+        table = current.with(packetClass, handlers);
+        return handlers;
+    }
+
+    /**
+     * Recomputes the handlers of every packet class seen so far, so subscribing doesn't cause misses on the hot path
+     */
+    private void rebuild() {
+        Table current = table;
+        Table next = new Table(current.keys.length);
+        for (Class<?> key : current.keys)
+            if (key != null) next.put(key, collect(key));
+        table = next;
+    }
+
+    private Handler[] collect(Class<?> packetClass) {
+        Handler[] handlers = EventTopic.NONE;
+        for (Route route : routes)
+            if (route.packetClass.isAssignableFrom(packetClass)) handlers = Handler.insert(handlers, route.handler);
+        return handlers;
+    }
+
+    private static class Route {
+        private final Class<?> packetClass;
+        private final Handler handler;
+
+        private Route(Class<?> packetClass, Handler handler) {
+            this.packetClass = packetClass;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * Open-addressed identity map from class to handlers, at most half full
+     */
+    private static class Table {
+        private final Class<?>[] keys;
+        private final Handler[][] values;
+        private int size;
+
+        private Table(int capacity) {
+            keys = new Class<?>[capacity];
+            values = new Handler[capacity][];
+        }
+
+        private Handler[] get(Class<?> key) {
+            int mask = keys.length - 1;
+            for (int i = System.identityHashCode(key) & mask; ; i = (i + 1) & mask) {
+                Class<?> k = keys[i];
+                if (k == key) return values[i];
+                if (k == null) return null;
+            }
+        }
+
+        private void put(Class<?> key, Handler[] value) {
+            int mask = keys.length - 1;
+            int i = System.identityHashCode(key) & mask;
+            while (keys[i] != null && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] == null) size++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private Table with(Class<?> key, Handler[] value) {
+            Table copy = new Table((size + 1) * 2 > keys.length ? keys.length * 2 : keys.length);
+            for (int i = 0; i < keys.length; i++)
+                if (keys[i] != null) copy.put(keys[i], values[i]);
+            copy.put(key, value);
+            return copy;
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package me.zeroeightsix.kami.event;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Subscribes a method taking a single event parameter to that event type, or sets the priority of an
+ * {@link me.zero.alpine.listener.EventHandler} or {@link PacketHandler} listener field.
+ * <p>
+ * Methods are called through an invoker generated with {@link java.lang.invoke.LambdaMetafactory}, so they need to be
+ * public to be as fast as listener fields.
+ *
+ * @see KamiEventBus
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface Subscribe {
+
+    int HIGHEST = 200;
+    int HIGH = 100;
+    int DEFAULT = 0;
+    int LOW = -100;
+    int LOWEST = -200;
+
+    /**
+     * Handlers with a higher priority are called first. Handlers with the same priority are called in subscription order.
+     */
+    int priority() default DEFAULT;
+
+    /**
+     * Whether to still be called once a handler before this one has cancelled the event.
+     * Listener fields without this annotation always receive cancelled events.
+     */
+    boolean receiveCancelled() default false;
+
+}
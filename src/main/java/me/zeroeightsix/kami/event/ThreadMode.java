@@ -0,0 +1,17 @@
+package me.zeroeightsix.kami.event;
+
+/**
+ * Where a {@link PacketHandler} listener is called.
+ */
+public enum ThreadMode {
+    /**
+     * Straight away, on whichever thread sends or receives the packet (for received packets, the netty IO thread).
+     * Can cancel or modify the packet before the game handles it, but must not touch game state.
+     */
+    IO,
+    /**
+     * On the main thread. Packets from other threads are queued and handed to these listeners at the start of the next
+     * client tick, after the game may already have handled them, so these listeners can't cancel or modify packets.
+     */
+    MAIN
+}
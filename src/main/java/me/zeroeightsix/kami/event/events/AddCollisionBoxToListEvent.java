@@ -1,5 +1,7 @@
 package me.zeroeightsix.kami.event.events;
 
+import me.zeroeightsix.kami.KamiMod;
+import me.zeroeightsix.kami.event.EventTopic;
 import me.zeroeightsix.kami.event.KamiEvent;
 import net.minecraft.block.Block;
 import net.minecraft.block.state.IBlockState;
@@ -14,6 +16,8 @@ import java.util.List;
  * Created by 086 on 11/12/2017.
  */
 public class AddCollisionBoxToListEvent extends KamiEvent {
+    public static final EventTopic TOPIC = KamiMod.EVENT_BUS.topic(AddCollisionBoxToListEvent.class);
+
     private final Block block;
     private final IBlockState state;
     private final World world;
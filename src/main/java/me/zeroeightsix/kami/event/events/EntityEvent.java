@@ -1,5 +1,8 @@
 package me.zeroeightsix.kami.event.events;
 
+import me.zeroeightsix.kami.KamiMod;
+import me.zeroeightsix.kami.event.EventPool;
+import me.zeroeightsix.kami.event.EventTopic;
 import me.zeroeightsix.kami.event.KamiEvent;
 import net.minecraft.entity.Entity;
 
@@ -16,10 +19,20 @@ public class EntityEvent extends KamiEvent {
     }
 
     public Entity getEntity() {
+        checkReleased();
         return entity;
     }
 
+    @Override
+    protected void reset() {
+        super.reset();
+        entity = null;
+    }
+
     public static class EntityCollision extends EntityEvent {
+        public static final EventTopic TOPIC = KamiMod.EVENT_BUS.topic(EntityCollision.class);
+        public static final EventPool<EntityCollision> POOL = new EventPool<>("EntityCollision", () -> new EntityCollision(null, 0, 0, 0));
+
         double x,y,z;
 
         public EntityCollision(Entity entity, double x, double y, double z) {
@@ -29,15 +42,26 @@ public class EntityEvent extends KamiEvent {
             this.z = z;
         }
 
+        public EntityCollision set(Entity entity, double x, double y, double z) {
+            ((EntityEvent) this).entity = entity;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            return this;
+        }
+
         public double getX() {
+            checkReleased();
             return x;
         }
 
         public double getY() {
+            checkReleased();
             return y;
         }
 
         public double getZ() {
+            checkReleased();
             return z;
         }
 
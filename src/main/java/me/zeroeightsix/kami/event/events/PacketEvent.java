@@ -1,5 +1,6 @@
 package me.zeroeightsix.kami.event.events;
 
+import me.zeroeightsix.kami.event.EventPool;
 import me.zeroeightsix.kami.event.KamiEvent;
 import net.minecraft.network.Packet;
 
@@ -8,7 +9,8 @@ import net.minecraft.network.Packet;
  */
 public class PacketEvent extends KamiEvent {
 
-    private final Packet packet;
+    private Packet packet;
+    private long time;
 
     public PacketEvent(Packet packet) {
         super();
@@ -16,18 +18,49 @@ public class PacketEvent extends KamiEvent {
     }
 
     public Packet getPacket() {
+        checkReleased();
         return packet;
     }
 
+    /**
+     * @return when the packet was sent or received, in milliseconds. Differs from now for main thread listeners.
+     */
+    public long getTime() {
+        checkReleased();
+        return time;
+    }
+
+    @Override
+    protected void reset() {
+        super.reset();
+        packet = null;
+    }
+
     public static class Receive extends PacketEvent {
+        public static final EventPool<Receive> POOL = new EventPool<>("PacketEvent.Receive", () -> new Receive(null));
+
         public Receive(Packet packet) {
             super(packet);
         }
+
+        public Receive set(Packet packet, long time) {
+            ((PacketEvent) this).packet = packet;
+            ((PacketEvent) this).time = time;
+            return this;
+        }
     }
     public static class Send extends PacketEvent {
+        public static final EventPool<Send> POOL = new EventPool<>("PacketEvent.Send", () -> new Send(null));
+
         public Send(Packet packet) {
             super(packet);
         }
+
+        public Send set(Packet packet, long time) {
+            ((PacketEvent) this).packet = packet;
+            ((PacketEvent) this).time = time;
+            return this;
+        }
     }
 
 }
@@ -1,5 +1,8 @@
 package me.zeroeightsix.kami.event.events;
 
+import me.zeroeightsix.kami.KamiMod;
+import me.zeroeightsix.kami.event.EventPool;
+import me.zeroeightsix.kami.event.EventTopic;
 import me.zeroeightsix.kami.event.KamiEvent;
 import net.minecraft.entity.MoverType;
 
@@ -7,6 +10,8 @@ import net.minecraft.entity.MoverType;
  * @author 086
  */
 public class PlayerMoveEvent extends KamiEvent {
+    public static final EventTopic TOPIC = KamiMod.EVENT_BUS.topic(PlayerMoveEvent.class);
+    public static final EventPool<PlayerMoveEvent> POOL = new EventPool<>("PlayerMoveEvent", () -> new PlayerMoveEvent(null, 0, 0, 0));
 
     private MoverType type;
     private double x, y, z;
@@ -18,7 +23,22 @@ public class PlayerMoveEvent extends KamiEvent {
         this.z = z;
     }
 
+    public PlayerMoveEvent set(MoverType type, double x, double y, double z) {
+        this.type = type;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    @Override
+    protected void reset() {
+        super.reset();
+        type = null;
+    }
+
     public MoverType getType() {
+        checkReleased();
         return type;
     }
 
@@ -27,14 +47,17 @@ public class PlayerMoveEvent extends KamiEvent {
     }
 
     public double getX() {
+        checkReleased();
         return x;
     }
 
     public double getY() {
+        checkReleased();
         return y;
     }
 
     public double getZ() {
+        checkReleased();
         return z;
     }
 
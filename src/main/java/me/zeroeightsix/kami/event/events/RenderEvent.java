@@ -1,6 +1,7 @@
 package me.zeroeightsix.kami.event.events;
 
 import me.zeroeightsix.kami.event.KamiEvent;
+import me.zeroeightsix.kami.util.RenderBatch;
 import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.util.math.Vec3d;
@@ -13,11 +14,15 @@ public class RenderEvent extends KamiEvent {
 
     private final Tessellator tessellator;
     private final Vec3d renderPos;
+    private final RenderBatch batch;
+    private final RenderBatch tracerBatch;
 
-    public RenderEvent(Tessellator tessellator, Vec3d renderPos) {
+    public RenderEvent(Tessellator tessellator, Vec3d renderPos, RenderBatch batch, RenderBatch tracerBatch) {
         super();
         this.tessellator = tessellator;
         this.renderPos = renderPos;
+        this.batch = batch;
+        this.tracerBatch = tracerBatch;
     }
 
     public Tessellator getTessellator() {
@@ -28,6 +33,21 @@ public class RenderEvent extends KamiEvent {
         return tessellator.getBuffer();
     }
 
+    /**
+     * Geometry added here is drawn once all modules have rendered, see {@link RenderBatch}
+     */
+    public RenderBatch getBatch() {
+        return batch;
+    }
+
+    /**
+     * Like {@link #getBatch()}, but positions are already relative to the camera and drawn without view bobbing, so lines
+     * starting at the crosshair stay there. See {@link me.zeroeightsix.kami.module.modules.render.Tracers}.
+     */
+    public RenderBatch getTracerBatch() {
+        return tracerBatch;
+    }
+
     public Vec3d getRenderPos() {
         return renderPos;
     }
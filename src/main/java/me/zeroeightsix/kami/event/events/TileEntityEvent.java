@@ -0,0 +1,40 @@
+package me.zeroeightsix.kami.event.events;
+
+import me.zeroeightsix.kami.KamiMod;
+import me.zeroeightsix.kami.event.EventTopic;
+import me.zeroeightsix.kami.event.KamiEvent;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Posted when a tile entity is added to or removed from a chunk of the client world
+ */
+public class TileEntityEvent extends KamiEvent {
+
+    private final BlockPos pos;
+
+    public TileEntityEvent(BlockPos pos) {
+        super();
+        this.pos = pos;
+    }
+
+    public BlockPos getPos() {
+        return pos;
+    }
+
+    public static class Add extends TileEntityEvent {
+        public static final EventTopic TOPIC = KamiMod.EVENT_BUS.topic(Add.class);
+
+        public Add(BlockPos pos) {
+            super(pos);
+        }
+    }
+
+    public static class Remove extends TileEntityEvent {
+        public static final EventTopic TOPIC = KamiMod.EVENT_BUS.topic(Remove.class);
+
+        public Remove(BlockPos pos) {
+            super(pos);
+        }
+    }
+
+}
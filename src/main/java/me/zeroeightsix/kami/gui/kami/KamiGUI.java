@@ -19,7 +19,9 @@ import me.zeroeightsix.kami.gui.rgui.util.ContainerHelper;
 import me.zeroeightsix.kami.gui.rgui.util.Docking;
 import me.zeroeightsix.kami.module.Module;
 import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.ModuleProfiler;
 import me.zeroeightsix.kami.util.ColourHolder;
+import me.zeroeightsix.kami.util.EntityIndex;
 import me.zeroeightsix.kami.util.LagCompensator;
 import me.zeroeightsix.kami.util.Pair;
 import me.zeroeightsix.kami.util.Wrapper;
@@ -228,7 +230,7 @@ public class KamiGUI extends GUI {
             Minecraft mc = Wrapper.getMinecraft();
 
             if (mc.player == null) return;
-            List<EntityPlayer> entityList = mc.world.playerEntities;
+            List<EntityPlayer> entityList = EntityIndex.INSTANCE.ofType(EntityPlayer.class);
 
             Map<String, Integer> players = new HashMap<>();
             for (Entity e : entityList) {
@@ -280,7 +282,7 @@ public class KamiGUI extends GUI {
             public void onTick() {
                 if (mc.player == null || !entityLabel.isVisible()) return;
 
-                final List<Entity> entityList = new ArrayList<>(mc.world.loadedEntityList);
+                final List<Entity> entityList = EntityIndex.INSTANCE.ofType(Entity.class);
                 if (entityList.size() <= 1) {
                     entityLabel.setText("");
                     return;
@@ -358,6 +360,30 @@ public class KamiGUI extends GUI {
         frame.setHeight(20);
         frames.add(frame);
 
+        frame = new Frame(getTheme(), new Stretcherlayout(1), "Performance");
+        frame.setCloseable(false);
+        frame.setPinneable(true);
+        Label performance = new Label("");
+        performance.addTickListener(() -> {
+            if (!performance.isVisible()) return;
+            performance.setText("");
+            List<ModuleProfiler.Entry> entries = ModuleProfiler.getRecentEntries();
+            for (int i = 0; i < Math.min(5, entries.size()); i++) {
+                ModuleProfiler.Entry entry = entries.get(i);
+                ModuleProfiler.Timings timings = entry.getTimings();
+                performance.addLine(String.format("%s7%s %s8%s %s3%s%s8/s %s7p99 %s3%s",
+                        Command.SECTIONSIGN(), entry.getModule().getName(),
+                        Command.SECTIONSIGN(), entry.getHook().getName(),
+                        Command.SECTIONSIGN(), ModuleProfiler.format(timings.getRecentTotal()), Command.SECTIONSIGN(),
+                        Command.SECTIONSIGN(),
+                        Command.SECTIONSIGN(), ModuleProfiler.format(timings.getRecentP99())));
+            }
+        });
+        frame.addChild(performance);
+        performance.setShadow(true);
+        performance.setFontRenderer(fontRenderer);
+        frames.add(frame);
+
         frame = new Frame(getTheme(), new Stretcherlayout(1), "Radar");
         frame.setCloseable(false);
         frame.setMinimizeable(true);
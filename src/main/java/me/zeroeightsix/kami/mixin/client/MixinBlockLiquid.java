@@ -1,6 +1,6 @@
 package me.zeroeightsix.kami.mixin.client;
 
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import net.minecraft.block.BlockLiquid;
 import net.minecraft.entity.Entity;
 import net.minecraft.util.math.BlockPos;
@@ -19,7 +19,7 @@ public class MixinBlockLiquid {
 
     @Inject(method = "modifyAcceleration", at = @At("HEAD"), cancellable = true)
     public void modifyAcceleration(World worldIn, BlockPos pos, Entity entityIn, Vec3d motion, CallbackInfoReturnable returnable) {
-        if (ModuleManager.isModuleEnabled("Velocity")) {
+        if (Modules.VELOCITY.isEnabled()) {
             returnable.setReturnValue(motion);
             returnable.cancel();
         }
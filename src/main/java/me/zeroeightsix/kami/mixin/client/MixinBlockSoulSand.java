@@ -1,6 +1,6 @@
 package me.zeroeightsix.kami.mixin.client;
 
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import net.minecraft.block.BlockSoulSand;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.Entity;
@@ -20,7 +20,7 @@ public class MixinBlockSoulSand {
     @Inject(method = "onEntityCollision", at = @At("HEAD"), cancellable = true)
     public void onEntityCollidedWithBlock(World worldIn, BlockPos pos, IBlockState state, Entity entityIn, CallbackInfo info) {
         // If noslowdown is on, just don't do anything else in this method (slow the player)
-        if (ModuleManager.isModuleEnabled("NoSlowDown")) info.cancel();
+        if (Modules.NO_SLOW_DOWN.isEnabled()) info.cancel();
     }
 
 }
@@ -1,6 +1,6 @@
 package me.zeroeightsix.kami.mixin.client;
 
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import net.minecraft.network.EnumConnectionState;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.network.handshake.client.C00Handshake;
@@ -23,7 +23,7 @@ public class MixinC00Handshake {
 
     @Inject(method = "writePacketData", at = @At(value = "HEAD"), cancellable = true)
     public void writePacketData(PacketBuffer buf, CallbackInfo info) {
-        if (ModuleManager.isModuleEnabled("FakeVanilla")) {
+        if (Modules.FAKE_VANILLA.isEnabled()) {
             info.cancel();
             buf.writeVarInt(protocolVersion);
             buf.writeString(ip);
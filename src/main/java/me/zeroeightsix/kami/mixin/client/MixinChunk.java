@@ -0,0 +1,50 @@
+package me.zeroeightsix.kami.mixin.client;
+
+import me.zeroeightsix.kami.KamiMod;
+import me.zeroeightsix.kami.event.events.TileEntityEvent;
+import me.zeroeightsix.kami.util.RaycastService;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.Map;
+
+@Mixin(Chunk.class)
+public class MixinChunk {
+
+    @Shadow @Final private World world;
+    @Shadow @Final private Map<BlockPos, TileEntity> tileEntities;
+
+    @Inject(method = "addTileEntity(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/tileentity/TileEntity;)V", at = @At("RETURN"))
+    public void addTileEntity(BlockPos pos, TileEntity tileEntity, CallbackInfo info) {
+        if (world.isRemote && TileEntityEvent.Add.TOPIC.hasListeners() && tileEntities.get(pos) == tileEntity)
+            KamiMod.EVENT_BUS.post(new TileEntityEvent.Add(pos));
+    }
+
+    @Inject(method = "removeTileEntity", at = @At("HEAD"))
+    public void removeTileEntity(BlockPos pos, CallbackInfo info) {
+        if (world.isRemote && TileEntityEvent.Remove.TOPIC.hasListeners() && tileEntities.containsKey(pos))
+            KamiMod.EVENT_BUS.post(new TileEntityEvent.Remove(pos));
+    }
+
+    @Inject(method = "setBlockState", at = @At("RETURN"))
+    public void setBlockState(BlockPos pos, IBlockState state, CallbackInfoReturnable<IBlockState> info) {
+        if (world.isRemote && info.getReturnValue() != null) RaycastService.INSTANCE.onBlocksChanged();
+    }
+
+    @Inject(method = "read", at = @At("RETURN"))
+    public void read(PacketBuffer buf, int availableSections, boolean groundUpContinuous, CallbackInfo info) {
+        RaycastService.INSTANCE.onBlocksChanged();
+    }
+
+}
@@ -16,9 +16,15 @@ public class MixinEntity {
 
     @Redirect(method = "applyEntityCollision", at = @At(value = "INVOKE", target = "Lnet/minecraft/entity/Entity;addVelocity(DDD)V"))
     public void addVelocity(Entity entity, double x, double y, double z) {
-        EntityEvent.EntityCollision entityCollisionEvent = new EntityEvent.EntityCollision(entity, x, y, z);
-        KamiMod.EVENT_BUS.post(entityCollisionEvent);
-        if (entityCollisionEvent.isCancelled()) return;
+        if (EntityEvent.EntityCollision.TOPIC.hasListeners()) {
+            EntityEvent.EntityCollision entityCollisionEvent = EntityEvent.EntityCollision.POOL.acquire().set(entity, x, y, z);
+            try {
+                KamiMod.EVENT_BUS.post(entityCollisionEvent);
+                if (entityCollisionEvent.isCancelled()) return;
+            } finally {
+                EntityEvent.EntityCollision.POOL.release(entityCollisionEvent);
+            }
+        }
 
         entity.motionX += x;
         entity.motionY += y;
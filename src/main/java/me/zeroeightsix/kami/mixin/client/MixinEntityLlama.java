@@ -1,6 +1,6 @@
 package me.zeroeightsix.kami.mixin.client;
 
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import net.minecraft.entity.passive.EntityLlama;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -15,7 +15,7 @@ public class MixinEntityLlama {
 
     @Inject(method = "canBeSteered", at = @At("RETURN"), cancellable = true)
     public void canBeSteered(CallbackInfoReturnable<Boolean> returnable) {
-        if (ModuleManager.isModuleEnabled("EntitySpeed")) returnable.setReturnValue(true);
+        if (Modules.ENTITY_SPEED.isEnabled()) returnable.setReturnValue(true);
     }
 
 }
@@ -1,6 +1,6 @@
 package me.zeroeightsix.kami.mixin.client;
 
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import net.minecraft.entity.passive.EntityPig;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -15,7 +15,7 @@ public class MixinEntityPig {
 
     @Inject(method = "canBeSteered", at = @At("HEAD"), cancellable = true)
     public void canBeSteered(CallbackInfoReturnable returnable) {
-        if (ModuleManager.isModuleEnabled("EntitySpeed")) {
+        if (Modules.ENTITY_SPEED.isEnabled()) {
             returnable.setReturnValue(true);
             returnable.cancel();
         }
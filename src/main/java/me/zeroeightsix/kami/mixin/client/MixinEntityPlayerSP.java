@@ -2,7 +2,7 @@ package me.zeroeightsix.kami.mixin.client;
 
 import me.zeroeightsix.kami.KamiMod;
 import me.zeroeightsix.kami.event.events.PlayerMoveEvent;
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.entity.EntityPlayerSP;
 import net.minecraft.client.gui.GuiScreen;
@@ -23,12 +23,12 @@ public class MixinEntityPlayerSP {
 
     @Redirect(method = "onLivingUpdate", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/entity/EntityPlayerSP;closeScreen()V"))
     public void closeScreen(EntityPlayerSP entityPlayerSP) {
-        if (ModuleManager.isModuleEnabled("PortalChat")) return;
+        if (Modules.PORTAL_CHAT.isEnabled()) return;
     }
 
     @Redirect(method = "onLivingUpdate", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/Minecraft;displayGuiScreen(Lnet/minecraft/client/gui/GuiScreen;)V"))
     public void closeScreen(Minecraft minecraft, GuiScreen screen) {
-        if (ModuleManager.isModuleEnabled("PortalChat")) return;
+        if (Modules.PORTAL_CHAT.isEnabled()) return;
     }
 
 //    @ModifyArgs(method = "move", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/entity/AbstractClientPlayer;move(Lnet/minecraft/entity/MoverType;DDD)V"))
@@ -53,9 +53,14 @@ public class MixinEntityPlayerSP {
 
     @Inject(method = "move", at = @At("HEAD"), cancellable = true)
     public void move(MoverType type, double x, double y, double z, CallbackInfo info) {
-        PlayerMoveEvent event = new PlayerMoveEvent(type, x, y, z);
-        KamiMod.EVENT_BUS.post(event);
-        if (event.isCancelled()) info.cancel();
+        if (!PlayerMoveEvent.TOPIC.hasListeners()) return;
+        PlayerMoveEvent event = PlayerMoveEvent.POOL.acquire().set(type, x, y, z);
+        try {
+            KamiMod.EVENT_BUS.post(event);
+            if (event.isCancelled()) info.cancel();
+        } finally {
+            PlayerMoveEvent.POOL.release(event);
+        }
     }
 
 }
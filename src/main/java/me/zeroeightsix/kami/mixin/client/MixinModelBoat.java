@@ -1,6 +1,6 @@
 package me.zeroeightsix.kami.mixin.client;
 
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import me.zeroeightsix.kami.module.modules.movement.EntitySpeed;
 import me.zeroeightsix.kami.util.Wrapper;
 import net.minecraft.client.model.ModelBoat;
@@ -19,7 +19,7 @@ public class MixinModelBoat {
 
     @Inject(method = "render", at = @At("HEAD"))
     public void render(Entity entityIn, float limbSwing, float limbSwingAmount, float ageInTicks, float netHeadYaw, float headPitch, float scale, CallbackInfo info) {
-        if (Wrapper.getPlayer().getRidingEntity() == entityIn && ModuleManager.isModuleEnabled("EntitySpeed")) {
+        if (Wrapper.getPlayer().getRidingEntity() == entityIn && Modules.ENTITY_SPEED.isEnabled()) {
             GlStateManager.color(1, 1, 1, EntitySpeed.getOpacity());
             GlStateManager.enableBlend();
         }
@@ -2,6 +2,7 @@ package me.zeroeightsix.kami.mixin.client;
 
 import me.zeroeightsix.kami.KamiMod;
 import me.zeroeightsix.kami.event.events.ChunkEvent;
+import me.zeroeightsix.kami.util.ChunkScanService;
 import net.minecraft.client.network.NetHandlerPlayClient;
 import net.minecraft.network.play.server.SPacketChunkData;
 import net.minecraft.world.chunk.Chunk;
@@ -24,4 +25,14 @@ public class MixinNetHandlerPlayClient {
         KamiMod.EVENT_BUS.post(new ChunkEvent(chunk, data));
     }
 
+    /**
+     * Unlike {@link ChunkEvent}, which is posted before the chunk is read, this sees the chunk's new blocks
+     */
+    @Inject(method = "handleChunkData",
+            at = @At(value = "INVOKE", target = "Lnet/minecraft/world/chunk/Chunk;read(Lnet/minecraft/network/PacketBuffer;IZ)V", shift = At.Shift.AFTER),
+            locals = LocalCapture.CAPTURE_FAILHARD)
+    private void scan(SPacketChunkData data, CallbackInfo info, Chunk chunk) {
+        ChunkScanService.INSTANCE.submit(chunk);
+    }
+
 }
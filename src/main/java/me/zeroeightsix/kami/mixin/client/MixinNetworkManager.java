@@ -2,7 +2,6 @@ package me.zeroeightsix.kami.mixin.client;
 
 import io.netty.channel.ChannelHandlerContext;
 import me.zeroeightsix.kami.KamiMod;
-import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.modules.misc.NoPacketKick;
 import net.minecraft.network.NetworkManager;
 import net.minecraft.network.Packet;
@@ -21,20 +20,14 @@ public class MixinNetworkManager {
 
     @Inject(method = "sendPacket(Lnet/minecraft/network/Packet;)V", at = @At("HEAD"), cancellable = true)
     private void onSendPacket(Packet<?> packet, CallbackInfo callbackInfo) {
-        PacketEvent event = new PacketEvent.Send(packet);
-        KamiMod.EVENT_BUS.post(event);
-
-        if (event.isCancelled()) {
+        if (KamiMod.EVENT_BUS.postSend(packet)) {
             callbackInfo.cancel();
         }
     }
 
     @Inject(method = "channelRead0", at = @At("HEAD"), cancellable = true)
     private void onChannelRead(ChannelHandlerContext context, Packet<?> packet, CallbackInfo callbackInfo) {
-        PacketEvent event = new PacketEvent.Receive(packet);
-        KamiMod.EVENT_BUS.post(event);
-
-        if (event.isCancelled()) {
+        if (KamiMod.EVENT_BUS.postReceive(packet)) {
             callbackInfo.cancel();
         }
     }
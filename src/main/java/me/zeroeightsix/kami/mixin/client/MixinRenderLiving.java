@@ -1,6 +1,6 @@
 package me.zeroeightsix.kami.mixin.client;
 
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import me.zeroeightsix.kami.module.modules.render.Chams;
 import net.minecraft.client.renderer.entity.RenderLiving;
 import net.minecraft.entity.EntityLiving;
@@ -19,7 +19,7 @@ public class MixinRenderLiving {
 
     @Inject(method = "doRender", at = @At("HEAD"))
     private void injectChamsPre(EntityLiving entity, double x, double y, double z, float entityYaw, float partialTicks, CallbackInfo info) {
-        if (ModuleManager.isModuleEnabled("Chams") && Chams.renderChams(entity)) {
+        if (Modules.CHAMS.isEnabled() && Chams.renderChams(entity)) {
             GL11.glEnable(32823);
             GL11.glPolygonOffset(1.0f, -1000000.0f);
         }
@@ -27,7 +27,7 @@ public class MixinRenderLiving {
 
     @Inject(method = "doRender", at = @At("RETURN"))
     private <S extends EntityLivingBase> void injectChamsPost(EntityLiving entity, double x, double y, double z, float entityYaw, float partialTicks, CallbackInfo info) {
-        if (ModuleManager.isModuleEnabled("Chams") && Chams.renderChams(entity)) {
+        if (Modules.CHAMS.isEnabled() && Chams.renderChams(entity)) {
             GL11.glPolygonOffset(1.0f, 1000000.0f);
             GL11.glDisable(32823);
         }
@@ -29,12 +29,29 @@ public class Module {
     private final String description = getAnnotation().description();
     private final Category category = getAnnotation().category();
     private Setting<Bind> bind = register(Settings.custom("Bind", Bind.none(), new BindConverter()).build());
-    private Setting<Boolean> enabled = register(Settings.booleanBuilder("Enabled").withVisibility(aBoolean -> false).withValue(false).build());
+    private Setting<Boolean> enabled = register(Settings.booleanBuilder("Enabled").withVisibility(aBoolean -> false).withValue(false).withConsumer((old, now) -> {
+        if (handle != null) handle.enabled = now;
+        if (!old.equals(now)) ModuleManager.rebuildActive(); // covers enable(), disable() and values loaded from the configuration
+    }).build());
+    /**
+     * This module's entry in {@link Modules}, set when handles are resolved
+     */
+    ModuleHandle<?> handle;
     public boolean alwaysListening;
+
+    // Whether this module overrides the respective hook; modules that don't are left out of the manager's dispatch arrays
+    final boolean overridesUpdate = ModuleManager.overrides(this, "onUpdate");
+    final boolean overridesRender = ModuleManager.overrides(this, "onRender");
+    final boolean overridesWorldRender = ModuleManager.overrides(this, "onWorldRender", RenderEvent.class);
     protected static final Minecraft mc = Minecraft.getMinecraft();
 
     public List<Setting> settingList = new ArrayList<>();
 
+    /**
+     * Per-hook timings, indexed by {@link ModuleProfiler.Hook#ordinal()}. Entries are created on the first call.
+     */
+    final ModuleProfiler.Timings[] timings = new ModuleProfiler.Timings[ModuleProfiler.Hook.values().length];
+
     public Module() {
         alwaysListening = getAnnotation().alwaysListening();
         registerAll(bind, enabled);
@@ -156,9 +173,11 @@ public class Module {
     }
 
     protected final void setAlwaysListening(boolean alwaysListening) {
+        boolean changed = this.alwaysListening != alwaysListening;
         this.alwaysListening = alwaysListening;
         if (alwaysListening) KamiMod.EVENT_BUS.subscribe(this);
         if (!alwaysListening && isDisabled()) KamiMod.EVENT_BUS.unsubscribe(this);
+        if (changed) ModuleManager.rebuildActive();
     }
 
     /**
@@ -0,0 +1,43 @@
+package me.zeroeightsix.kami.module;
+
+/**
+ * A typed reference to a module, as found in {@link Modules}. Handles are keyed by class, so they keep working after a
+ * module is renamed, and {@link #isEnabled()} is a single field read: use these instead of
+ * {@link ModuleManager#isModuleEnabled(String)} in mixins and other hot code.
+ * <p>
+ * Handles are resolved once in {@link ModuleManager#initialize()}. Until then (or if the module failed to load) they
+ * report the module as disabled and {@link #get()} returns null.
+ */
+public final class ModuleHandle<T extends Module> {
+
+    private final Class<T> type;
+    private T module;
+    /**
+     * Kept up to date by the module's Enabled setting
+     */
+    volatile boolean enabled;
+
+    public ModuleHandle(Class<T> type) {
+        this.type = type;
+    }
+
+    void resolve(Module module) {
+        if (module == null) return;
+        this.module = type.cast(module);
+        module.handle = this;
+        enabled = module.isEnabled();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public T get() {
+        return module;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+}
@@ -2,22 +2,23 @@ package me.zeroeightsix.kami.module;
 
 import me.zeroeightsix.kami.KamiMod;
 import me.zeroeightsix.kami.event.events.RenderEvent;
-import me.zeroeightsix.kami.module.modules.ClickGUI;
-import me.zeroeightsix.kami.util.ClassFinder;
+import me.zeroeightsix.kami.util.Bind;
+import me.zeroeightsix.kami.util.Culling;
 import me.zeroeightsix.kami.util.EntityUtil;
+import me.zeroeightsix.kami.util.FramePositions;
 import me.zeroeightsix.kami.util.KamiTessellator;
+import me.zeroeightsix.kami.util.RenderBatch;
 import me.zeroeightsix.kami.util.Wrapper;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.entity.RenderManager;
 import net.minecraft.util.math.Vec3d;
 import net.minecraftforge.client.event.RenderWorldLastEvent;
 import org.lwjgl.opengl.GL11;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Set;
 
 /**
  * Created by 086 on 23/08/2017.
@@ -31,6 +32,22 @@ public class ModuleManager {
      */
     static HashMap<String, Module> lookup = new HashMap<>();
 
+    private static final Module[] EMPTY = new Module[0];
+
+    /**
+     * Modules that are currently enabled (or always listening) and override the respective hook.
+     * These are copy-on-write: they are only replaced in {@link #rebuildActive()}, never mutated.
+     */
+    private static volatile Module[] updateModules = EMPTY;
+    private static volatile Module[] renderModules = EMPTY;
+    private static volatile Module[] worldRenderModules = EMPTY;
+
+    /**
+     * Reused every frame, see {@link RenderEvent#getBatch()}
+     */
+    private static final RenderBatch batch = new RenderBatch();
+    private static final RenderBatch tracerBatch = new RenderBatch();
+
     public static void updateLookup() {
         lookup.clear();
         for (Module m : modules)
@@ -38,33 +55,77 @@ public class ModuleManager {
     }
 
     public static void initialize() {
-        Set<Class> classList = ClassFinder.findClasses(ClickGUI.class.getPackage().getName(), Module.class);
-        classList.forEach(aClass -> {
+        long start = System.currentTimeMillis();
+        // ModuleRegistry is generated at compile time by the registry annotation processor
+        ModuleRegistry.registerAll((aClass, constructor) -> {
             try {
-                Module module = (Module) aClass.getConstructor().newInstance();
+                Module module = constructor.get();
                 modules.add(module);
-                // lookup.put(module.getName().toLowerCase(), module);
-            } catch (InvocationTargetException e) {
-                e.getCause().printStackTrace();
-                System.err.println("Couldn't initiate module " + aClass.getSimpleName() + "! Err: " + e.getClass().getSimpleName() + ", message: " + e.getMessage());
             } catch (Exception e) {
                 e.printStackTrace();
                 System.err.println("Couldn't initiate module " + aClass.getSimpleName() + "! Err: " + e.getClass().getSimpleName() + ", message: " + e.getMessage());
             }
         });
-        KamiMod.log.info("Modules initialised");
+        KamiMod.log.info("Modules initialised in " + (System.currentTimeMillis() - start) + " ms (" + modules.size() + "/" + ModuleRegistry.SIZE + ")");
         getModules().sort(Comparator.comparing(Module::getName));
+        resolveHandles();
+        rebuildActive();
+    }
+
+    /**
+     * Points every {@link ModuleHandle} in {@link Modules} at its module
+     */
+    private static void resolveHandles() {
+        HashMap<Class<?>, Module> byClass = new HashMap<>();
+        for (Module module : modules) byClass.put(module.getClass(), module);
+        for (ModuleHandle<?> handle : Modules.ALL) handle.resolve(byClass.get(handle.getType()));
+    }
+
+    /**
+     * Regenerates the per-hook arrays of active modules. Called whenever a module's enabled or always listening state changes.
+     */
+    static synchronized void rebuildActive() {
+        ArrayList<Module> update = new ArrayList<>();
+        ArrayList<Module> render = new ArrayList<>();
+        ArrayList<Module> worldRender = new ArrayList<>();
+        for (Module module : modules) {
+            if (!module.alwaysListening && !module.isEnabled()) continue;
+            if (module.overridesUpdate) update.add(module);
+            if (module.overridesRender) render.add(module);
+            if (module.overridesWorldRender) worldRender.add(module);
+        }
+        updateModules = update.toArray(EMPTY);
+        renderModules = render.toArray(EMPTY);
+        worldRenderModules = worldRender.toArray(EMPTY);
+    }
+
+    static boolean overrides(Module module, String method, Class<?>... parameters) {
+        try {
+            return module.getClass().getMethod(method, parameters).getDeclaringClass() != Module.class;
+        } catch (NoSuchMethodException e) {
+            return true; // Shouldn't happen, but err on the side of calling it
+        }
     }
 
     public static void onUpdate() {
-        modules.stream().filter(module -> module.alwaysListening || module.isEnabled()).forEach(module -> module.onUpdate());
+        ModuleProfiler.tick();
+        for (Module module : updateModules) {
+            long start = System.nanoTime();
+            module.onUpdate();
+            ModuleProfiler.record(module, ModuleProfiler.Hook.UPDATE, System.nanoTime() - start);
+        }
     }
 
     public static void onRender() {
-        modules.stream().filter(module -> module.alwaysListening || module.isEnabled()).forEach(module -> module.onRender());
+        for (Module module : renderModules) {
+            long start = System.nanoTime();
+            module.onRender();
+            ModuleProfiler.record(module, ModuleProfiler.Hook.RENDER, System.nanoTime() - start);
+        }
     }
 
     public static void onWorldRender(RenderWorldLastEvent event) {
+        long frameStart = System.nanoTime();
         Minecraft.getMinecraft().profiler.startSection("kami");
 
         Minecraft.getMinecraft().profiler.startSection("setup");
@@ -79,15 +140,27 @@ public class ModuleManager {
         GlStateManager.glLineWidth(1f);
         Vec3d renderPos = EntityUtil.getInterpolatedPos(Wrapper.getPlayer(), event.getPartialTicks());
 
-        RenderEvent e = new RenderEvent(KamiTessellator.INSTANCE, renderPos);
+        RenderManager renderManager = Minecraft.getMinecraft().getRenderManager();
+        batch.begin(renderManager.renderPosX, renderManager.renderPosY, renderManager.renderPosZ);
+        tracerBatch.begin(0, 0, 0);
+        RenderEvent e = new RenderEvent(KamiTessellator.INSTANCE, renderPos, batch, tracerBatch);
         e.resetTranslation();
+        FramePositions.update(event.getPartialTicks());
+        Culling.update();
         Minecraft.getMinecraft().profiler.endSection();
 
-        modules.stream().filter(module -> module.alwaysListening || module.isEnabled()).forEach(module -> {
+        for (Module module : worldRenderModules) {
             Minecraft.getMinecraft().profiler.startSection(module.getName());
+            long start = System.nanoTime();
             module.onWorldRender(e);
+            ModuleProfiler.record(module, ModuleProfiler.Hook.WORLD_RENDER, System.nanoTime() - start);
             Minecraft.getMinecraft().profiler.endSection();
-        });
+        }
+
+        Minecraft.getMinecraft().profiler.startSection("batch");
+        KamiTessellator.flush(batch);
+        KamiTessellator.flushUnbobbed(tracerBatch, event.getPartialTicks());
+        Minecraft.getMinecraft().profiler.endSection();
 
         Minecraft.getMinecraft().profiler.startSection("release");
         GlStateManager.glLineWidth(1f);
@@ -102,16 +175,21 @@ public class ModuleManager {
         KamiTessellator.releaseGL();
         Minecraft.getMinecraft().profiler.endSection();
 
+        if (Modules.RENDER_BUDGET.isEnabled()) Modules.RENDER_BUDGET.get().onFrame(System.nanoTime() - frameStart);
+
         Minecraft.getMinecraft().profiler.endSection();
     }
 
     public static void onBind(int eventKey) {
         if (eventKey == 0) return; // if key is the 'none' key (stuff like mod key in i3 might return 0)
-        modules.forEach(module -> {
-            if (module.getBind().isDown(eventKey)) {
+        for (int i = 0; i < modules.size(); i++) {
+            Module module = modules.get(i);
+            Bind bind = module.getBind();
+            // Compare the key first: isDown polls the keyboard for every modifier
+            if (bind.getKey() == eventKey && bind.isDown(eventKey)) {
                 module.toggle();
             }
-        });
+        }
     }
 
     public static ArrayList<Module> getModules() {
@@ -123,6 +201,9 @@ public class ModuleManager {
 //        return getModules().stream().filter(module -> module.getName().equalsIgnoreCase(name)).findFirst().orElse(null);
     }
 
+    /**
+     * Looks the module up by its current name. Only meant for names typed in by the user: use {@link Modules} in code.
+     */
     public static boolean isModuleEnabled(String moduleName) {
         Module m = getModuleByName(moduleName);
         if (m == null) return false;
@@ -0,0 +1,272 @@
+package me.zeroeightsix.kami.module;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Always-on timing of the module hooks called by {@link ModuleManager}.
+ * <p>
+ * Every call is recorded into a fixed-size log-linear histogram, so recording costs two {@link System#nanoTime()} calls
+ * and an array increment. Percentiles are accurate to within one sub-bucket (~12.5%).
+ */
+public class ModuleProfiler {
+
+    /**
+     * How often the "recent" statistics shown in the GUI are rolled over
+     */
+    private static final long WINDOW_MILLIS = 1000;
+
+    private static long lastRotation = System.currentTimeMillis();
+
+    public enum Hook {
+        UPDATE("update"), RENDER("render"), WORLD_RENDER("worldrender");
+
+        private final String name;
+
+        Hook(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Called once per client tick to roll the recent window over.
+     */
+    public static void tick() {
+        long now = System.currentTimeMillis();
+        if (now - lastRotation < WINDOW_MILLIS) return;
+        lastRotation = now;
+        for (Module module : ModuleManager.getModules())
+            for (Timings timings : module.timings)
+                if (timings != null) timings.rotate();
+    }
+
+    public static void reset() {
+        for (Module module : ModuleManager.getModules())
+            for (int i = 0; i < module.timings.length; i++)
+                module.timings[i] = null;
+    }
+
+    /**
+     * @return all recorded (module, hook) pairs, sorted by total time spent since the last reset
+     */
+    public static List<Entry> getEntries() {
+        List<Entry> entries = new ArrayList<>();
+        for (Module module : ModuleManager.getModules())
+            for (Hook hook : Hook.values()) {
+                Timings timings = module.timings[hook.ordinal()];
+                if (timings != null) entries.add(new Entry(module, hook, timings));
+            }
+        entries.sort(Comparator.comparingLong((Entry entry) -> entry.getTimings().lifetime.getTotal()).reversed());
+        return entries;
+    }
+
+    /**
+     * @return all (module, hook) pairs with calls in the last completed window, sorted by time spent in that window
+     */
+    public static List<Entry> getRecentEntries() {
+        List<Entry> entries = new ArrayList<>();
+        for (Module module : ModuleManager.getModules())
+            for (Hook hook : Hook.values()) {
+                Timings timings = module.timings[hook.ordinal()];
+                if (timings != null && timings.recentCount > 0) entries.add(new Entry(module, hook, timings));
+            }
+        entries.sort(Comparator.comparingLong((Entry entry) -> entry.getTimings().recentTotal).reversed());
+        return entries;
+    }
+
+    public static void dump(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write("module,hook,count,total_ns,mean_ns,p50_ns,p99_ns,max_ns");
+            writer.newLine();
+            for (Entry entry : getEntries()) {
+                Histogram h = entry.getTimings().lifetime;
+                writer.write(String.format("%s,%s,%d,%d,%d,%d,%d,%d",
+                        entry.getModule().getOriginalName(),
+                        entry.getHook().getName(),
+                        h.getCount(),
+                        h.getTotal(),
+                        h.getMean(),
+                        h.getPercentile(0.5),
+                        h.getPercentile(0.99),
+                        h.getMax()));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * @return the given amount of nanoseconds in a short, human readable form
+     */
+    public static String format(long nanos) {
+        if (nanos < 1000) return nanos + "ns";
+        if (nanos < 1000000) return String.format("%.1fus", nanos / 1000d);
+        return String.format("%.2fms", nanos / 1000000d);
+    }
+
+    static void record(Module module, Hook hook, long nanos) {
+        Timings timings = module.timings[hook.ordinal()];
+        if (timings == null) module.timings[hook.ordinal()] = timings = new Timings();
+        timings.record(nanos);
+    }
+
+    public static class Entry {
+        private final Module module;
+        private final Hook hook;
+        private final Timings timings;
+
+        Entry(Module module, Hook hook, Timings timings) {
+            this.module = module;
+            this.hook = hook;
+            this.timings = timings;
+        }
+
+        public Module getModule() {
+            return module;
+        }
+
+        public Hook getHook() {
+            return hook;
+        }
+
+        public Timings getTimings() {
+            return timings;
+        }
+    }
+
+    public static class Timings {
+        private final Histogram lifetime = new Histogram();
+        private final Histogram window = new Histogram();
+
+        // Summary of the last completed window
+        private long recentCount;
+        private long recentTotal;
+        private long recentP50;
+        private long recentP99;
+        private long recentMax;
+
+        void record(long nanos) {
+            lifetime.record(nanos);
+            window.record(nanos);
+        }
+
+        void rotate() {
+            recentCount = window.getCount();
+            recentTotal = window.getTotal();
+            recentP50 = window.getPercentile(0.5);
+            recentP99 = window.getPercentile(0.99);
+            recentMax = window.getMax();
+            window.reset();
+        }
+
+        public Histogram getLifetime() {
+            return lifetime;
+        }
+
+        public long getRecentCount() {
+            return recentCount;
+        }
+
+        public long getRecentTotal() {
+            return recentTotal;
+        }
+
+        public long getRecentP50() {
+            return recentP50;
+        }
+
+        public long getRecentP99() {
+            return recentP99;
+        }
+
+        public long getRecentMax() {
+            return recentMax;
+        }
+    }
+
+    /**
+     * Log-linear histogram: values are bucketed by their highest set bit, and each power of two is split into
+     * {@link #SUB_BUCKETS} linear sub-buckets.
+     */
+    public static class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int MAX_BITS = 36; // ~68 seconds, anything above is clamped
+        private static final int BUCKETS = bucketOf((1L << MAX_BITS) - 1) + 1;
+
+        private final long[] counts = new long[BUCKETS];
+        private long count;
+        private long total;
+        private long max;
+
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            counts[bucketOf(Math.min(nanos, (1L << MAX_BITS) - 1))]++;
+            count++;
+            total += nanos;
+            if (nanos > max) max = nanos;
+        }
+
+        /**
+         * @param quantile a value between 0 and 1
+         * @return the upper bound of the bucket containing the given quantile, capped at the maximum recorded value
+         */
+        public long getPercentile(double quantile) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(upperBoundOf(i), max);
+            }
+            return max;
+        }
+
+        public void reset() {
+            Arrays.fill(counts, 0);
+            count = 0;
+            total = 0;
+            max = 0;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long getMean() {
+            return count == 0 ? 0 : total / count;
+        }
+
+        private static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BITS
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return ((exponent - SUB_BITS + 1) << SUB_BITS) | sub;
+        }
+
+        private static long upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exponent = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+            long sub = bucket & (SUB_BUCKETS - 1);
+            return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+        }
+    }
+
+}
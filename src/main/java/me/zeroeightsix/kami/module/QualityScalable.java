@@ -0,0 +1,21 @@
+package me.zeroeightsix.kami.module;
+
+/**
+ * A module that can trade looks for frame time. {@link me.zeroeightsix.kami.module.modules.render.RenderBudget} lowers
+ * the level of every such module while KAMI's rendering runs over budget, and raises it again once there is room.
+ * <p>
+ * Level 0 is full quality; each level up should be cheaper than the one before.
+ */
+public interface QualityScalable {
+
+    /**
+     * @return the lowest quality level this module has, i.e. how many steps it can degrade
+     */
+    int getQualityLevels();
+
+    /**
+     * @param level between 0 and {@link #getQualityLevels()}
+     */
+    void setQualityLevel(int level);
+
+}
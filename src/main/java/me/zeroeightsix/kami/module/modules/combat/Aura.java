@@ -1,25 +1,21 @@
 package me.zeroeightsix.kami.module.modules.combat;
 
 import me.zeroeightsix.kami.module.Module;
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import me.zeroeightsix.kami.module.modules.misc.AutoTool;
 import me.zeroeightsix.kami.setting.Setting;
 import me.zeroeightsix.kami.setting.Settings;
-import me.zeroeightsix.kami.util.EntityUtil;
-import me.zeroeightsix.kami.util.Friends;
+import me.zeroeightsix.kami.util.EntityFlags;
+import me.zeroeightsix.kami.util.EntityIndex;
 import me.zeroeightsix.kami.util.LagCompensator;
-import net.minecraft.client.Minecraft;
+import me.zeroeightsix.kami.util.RaycastService;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityLivingBase;
-import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.init.Items;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.EnumHand;
-import net.minecraft.util.math.Vec3d;
-
-import java.util.Iterator;
 
 /**
  * Created by 086 on 12/12/2017.
@@ -54,33 +50,25 @@ public class Aura extends Module {
             }
         }
 
-        Iterator<Entity> entityIterator = Minecraft.getMinecraft().world.loadedEntityList.iterator();
-        while (entityIterator.hasNext()) {
-            Entity target = entityIterator.next();
-            if (!EntityUtil.isLiving(target)) {
-                continue;
-            }
+        for (EntityLivingBase target : EntityIndex.INSTANCE.withinRadius(mc.player, range.getValue(), EntityLivingBase.class, null)) {
             if (target == mc.player) {
                 continue;
             }
-            if (mc.player.getDistance(target) > range.getValue()) {
+            if (target.getHealth() <= 0) {
                 continue;
             }
-            if (((EntityLivingBase) target).getHealth() <= 0) {
+            if (target.hurtTime != 0 && wait.getValue()) {
                 continue;
             }
-            if (((EntityLivingBase) target).hurtTime != 0 && wait.getValue()) {
-                continue;
-            }
-            if (!walls.getValue() && (!mc.player.canEntityBeSeen(target) && !canEntityFeetBeSeen(target))) {
+            if (!walls.getValue() && (!canEntityEyesBeSeen(target) && !canEntityFeetBeSeen(target))) {
                 continue; // If walls is on & you can't see the feet or head of the target, skip. 2 raytraces needed
             }
-            if (players.getValue() && target instanceof EntityPlayer && !Friends.isFriend(target.getName())) {
+            if (players.getValue() && EntityFlags.is(target, EntityFlags.PLAYER) && !EntityFlags.is(target, EntityFlags.FRIEND)) {
                 attack(target);
                 return;
             } else {
-                if (EntityUtil.isPassive(target) ? animals.getValue() : (EntityUtil.isMobAggressive(target) && mobs.getValue())) {
-                    if (ModuleManager.isModuleEnabled("AutoTool")) {
+                if (EntityFlags.is(target, EntityFlags.PASSIVE) ? animals.getValue() : (EntityFlags.is(target, EntityFlags.AGGRESSIVE) && mobs.getValue())) {
+                    if (Modules.AUTO_TOOL.isEnabled()) {
                         AutoTool.equipBestWeapon();
                     }
                     attack(target);
@@ -157,7 +145,11 @@ public class Aura extends Module {
         return 0.0F;
     }
 
+    private boolean canEntityEyesBeSeen(Entity entityIn) {
+        return RaycastService.INSTANCE.isVisible(mc.world, mc.player.posX, mc.player.posY + mc.player.getEyeHeight(), mc.player.posZ, entityIn.posX, entityIn.posY + entityIn.getEyeHeight(), entityIn.posZ);
+    }
+
     private boolean canEntityFeetBeSeen(Entity entityIn) {
-        return mc.world.rayTraceBlocks(new Vec3d(mc.player.posX, mc.player.posX + mc.player.getEyeHeight(), mc.player.posZ), new Vec3d(entityIn.posX, entityIn.posY, entityIn.posZ), false, true, false) == null;
+        return RaycastService.INSTANCE.isVisible(mc.world, mc.player.posX, mc.player.posY + mc.player.getEyeHeight(), mc.player.posZ, entityIn.posX, entityIn.posY, entityIn.posZ);
     }
 }
@@ -3,7 +3,7 @@ package me.zeroeightsix.kami.module.modules.combat;
 import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
 import me.zeroeightsix.kami.module.Module;
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import me.zeroeightsix.kami.setting.Setting;
 import me.zeroeightsix.kami.setting.Settings;
 import net.minecraft.client.Minecraft;
@@ -53,7 +53,7 @@ public class AutoLog extends Module {
     }
 
     private void log() {
-        ModuleManager.getModuleByName("AutoReconnect").disable();
+        Modules.AUTO_RECONNECT.get().disable();
         shouldLog = true;
         lastLog = System.currentTimeMillis();
     }
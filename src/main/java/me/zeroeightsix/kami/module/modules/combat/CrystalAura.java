@@ -2,6 +2,9 @@ package me.zeroeightsix.kami.module.modules.combat;
 
 import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.PacketHandler;
+import me.zeroeightsix.kami.event.ThreadMode;
+import me.zeroeightsix.kami.event.events.ChunkEvent;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.event.events.RenderEvent;
 import me.zeroeightsix.kami.module.Module;
@@ -15,25 +18,22 @@ import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.SharedMonsterAttributes;
 import net.minecraft.entity.item.EntityEnderCrystal;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.init.Blocks;
 import net.minecraft.init.Items;
 import net.minecraft.init.MobEffects;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.ItemSword;
 import net.minecraft.item.ItemTool;
-import net.minecraft.network.Packet;
 import net.minecraft.network.play.client.CPacketPlayer;
 import net.minecraft.network.play.client.CPacketPlayerTryUseItemOnBlock;
+import net.minecraft.network.play.server.SPacketBlockChange;
+import net.minecraft.network.play.server.SPacketExplosion;
+import net.minecraft.network.play.server.SPacketMultiBlockChange;
 import net.minecraft.potion.Potion;
 import net.minecraft.util.*;
 import net.minecraft.util.math.*;
 import net.minecraft.world.Explosion;
-import org.lwjgl.opengl.GL11;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static me.zeroeightsix.kami.util.EntityUtil.calculateLookAt;
 
@@ -55,6 +55,7 @@ public class CrystalAura extends Module {
 
     private BlockPos render;
     private Entity renderEnt;
+    private Entity bestTarget;
     private long systemTime = -1;
     private static boolean togglePitch = false;
 	// we need this cooldown to not place from old hotbar slot, before we have switched to crystals
@@ -62,15 +63,36 @@ public class CrystalAura extends Module {
     private boolean isAttacking = false;
     private int oldSlot = -1;
     private int newSlot;
+    private final CrystalBases bases = new CrystalBases();
+    private final ExposureCache exposures = new ExposureCache();
+
+    @PacketHandler(value = {SPacketBlockChange.class, SPacketMultiBlockChange.class, SPacketExplosion.class}, thread = ThreadMode.MAIN)
+    private Listener<PacketEvent.Receive> blockListener = new Listener<>(event -> {
+        if (event.getPacket() instanceof SPacketBlockChange) {
+            bases.invalidate(((SPacketBlockChange) event.getPacket()).getBlockPosition());
+        } else if (event.getPacket() instanceof SPacketMultiBlockChange) {
+            for (SPacketMultiBlockChange.BlockUpdateData data : ((SPacketMultiBlockChange) event.getPacket()).getChangedBlocks())
+                bases.invalidate(data.getPos());
+        } else {
+            // Explosions break blocks on our end without any block change packets
+            for (BlockPos pos : ((SPacketExplosion) event.getPacket()).getAffectedBlockPositions()) bases.invalidate(pos);
+        }
+    });
+
+    @EventHandler
+    private Listener<ChunkEvent> chunkListener = new Listener<>(event -> {
+        if (bases.isNear(event.getChunk().x, event.getChunk().z)) bases.invalidateAll();
+    });
+
+    @EventHandler
+    private Listener<net.minecraftforge.event.world.ChunkEvent.Unload> unloadListener = new Listener<>(event -> {
+        if (event.getWorld().isRemote && bases.isNear(event.getChunk().x, event.getChunk().z)) bases.invalidateAll();
+    });
 
     @Override
     public void onUpdate() {
-        EntityEnderCrystal crystal = mc.world.loadedEntityList.stream()
-                .filter(entity -> entity instanceof EntityEnderCrystal)
-                .map(entity -> (EntityEnderCrystal) entity)
-                .min(Comparator.comparing(c -> mc.player.getDistance(c)))
-                .orElse(null);
-        if (explode.getValue() && crystal != null && mc.player.getDistance(crystal) <= range.getValue()) {
+        EntityEnderCrystal crystal = EntityIndex.INSTANCE.nearest(mc.player, range.getValue(), EntityEnderCrystal.class, null);
+        if (explode.getValue() && crystal != null) {
             //Added delay to stop ncp from flagging "hitting too fast"
             if (((System.nanoTime() / 1000000) - systemTime) >= 250) {
                 if (antiWeakness.getValue() && mc.player.isPotionActive(MobEffects.WEAKNESS)) {
@@ -134,43 +156,17 @@ public class CrystalAura extends Module {
         }
 
         List<BlockPos> blocks = findCrystalBlocks();
-        List<Entity> entities = new ArrayList<>();
-        if (players.getValue()) {
-            entities.addAll(mc.world.playerEntities.stream().filter(entityPlayer -> !Friends.isFriend(entityPlayer.getName())).collect(Collectors.toList()));
-        }
-        entities.addAll(mc.world.loadedEntityList.stream().filter(entity -> EntityUtil.isLiving(entity) && (EntityUtil.isPassive(entity) ? animals.getValue() : mobs.getValue())).collect(Collectors.toList()));
+        List<EntityLivingBase> entities = findTargets();
+        prepareExposures(blocks, entities);
 
-        BlockPos q = null;
-        double damage = .5;
-        for (Entity entity : entities) {
-            if (entity == mc.player || ((EntityLivingBase) entity).getHealth() <= 0) {
-                continue;
-            }
-            for (BlockPos blockPos : blocks) {
-                double b = entity.getDistanceSq(blockPos);
-                if (b >= 169) {
-                    continue; // If this block if further than 13 (3.6^2, less calc) blocks, ignore it. It'll take no or very little damage
-                }
-                double d = calculateDamage(blockPos.x + .5, blockPos.y + 1, blockPos.z + .5, entity);
-                if (d > damage) {
-                    double self = calculateDamage(blockPos.x + .5, blockPos.y + 1, blockPos.z + .5, mc.player);
-                    // If this deals more damage to ourselves than it does to our target, continue. This is only ignored if the crystal is sure to kill our target but not us.
-                    // Also continue if our crystal is going to hurt us.. alot
-                    if ((self > d && !(d < ((EntityLivingBase) entity).getHealth())) || self - .5 > mc.player.getHealth()) {
-                        continue;
-                    }
-                    damage = d;
-                    q = blockPos;
-                    renderEnt = entity;
-                }
-            }
-        }
-        if (damage == .5) {
+        BlockPos q = findBest(blocks, entities, this::calculateDamage);
+        if (q == null) {
             render = null;
             renderEnt = null;
             resetRotation();
             return;
         }
+        renderEnt = bestTarget;
         render = q;
 
         if (place.getValue()) {
@@ -183,7 +179,7 @@ public class CrystalAura extends Module {
                 return;
             }
             lookAtPacket(q.x + .5, q.y - .5, q.z + .5, mc.player);
-            RayTraceResult result = mc.world.rayTraceBlocks(new Vec3d(mc.player.posX, mc.player.posY + mc.player.getEyeHeight(), mc.player.posZ), new Vec3d(q.x + .5, q.y - .5d, q.z + .5));
+            RayTraceResult result = RaycastService.INSTANCE.trace(mc.world, mc.player.posX, mc.player.posY + mc.player.getEyeHeight(), mc.player.posZ, q.x + .5, q.y - .5d, q.z + .5, false, false, false);
             EnumFacing f;
             if (result == null || result.sideHit == null) {
                 f = EnumFacing.UP;
@@ -214,12 +210,10 @@ public class CrystalAura extends Module {
     @Override
     public void onWorldRender(RenderEvent event) {
         if (render != null) {
-            KamiTessellator.prepare(GL11.GL_QUADS);
-            KamiTessellator.drawBox(render, 0x44ffffff, GeometryMasks.Quad.ALL);
-            KamiTessellator.release();
+            event.getBatch().box(render, 0x44ffffff, GeometryMasks.Quad.ALL);
             if (renderEnt != null) {
-                Vec3d p = EntityUtil.getInterpolatedRenderPos(renderEnt, mc.getRenderPartialTicks());
-                Tracers.drawLineFromPosToPos(render.x - mc.getRenderManager().renderPosX + .5d, render.y - mc.getRenderManager().renderPosY + 1, render.z - mc.getRenderManager().renderPosZ + .5d, p.x, p.y, p.z, renderEnt.getEyeHeight(), 1, 1, 1, 1);
+                int slot = FramePositions.slot(renderEnt);
+                Tracers.drawLineFromPosToPos(event.getTracerBatch(), render.x - mc.getRenderManager().renderPosX + .5d, render.y - mc.getRenderManager().renderPosY + 1, render.z - mc.getRenderManager().renderPosZ + .5d, FramePositions.x(slot), FramePositions.y(slot), FramePositions.z(slot), FramePositions.eyeHeight(slot), 0xFFFFFFFF);
             }
         }
     }
@@ -229,68 +223,130 @@ public class CrystalAura extends Module {
         setYawAndPitch((float) v[0], (float) v[1]);
     }
 
-    private boolean canPlaceCrystal(BlockPos blockPos) {
-        BlockPos boost = blockPos.add(0, 1, 0);
-        BlockPos boost2 = blockPos.add(0, 2, 0);
-        if ((mc.world.getBlockState(blockPos).getBlock() != Blocks.BEDROCK
-                && mc.world.getBlockState(blockPos).getBlock() != Blocks.OBSIDIAN)
-                || mc.world.getBlockState(boost).getBlock() != Blocks.AIR
-                || mc.world.getBlockState(boost2).getBlock() != Blocks.AIR
-                || !mc.world.getEntitiesWithinAABB(Entity.class, new AxisAlignedBB(boost)).isEmpty()) {
-            return false;
-        }
-        return true;
-    }
-
     public static BlockPos getPlayerPos() {
         return new BlockPos(Math.floor(mc.player.posX), Math.floor(mc.player.posY), Math.floor(mc.player.posZ));
     }
 
-    private List<BlockPos> findCrystalBlocks() {
-        NonNullList<BlockPos> positions = NonNullList.create();
-        positions.addAll(getSphere(getPlayerPos(), range.getValue().floatValue(), range.getValue().intValue(), false, true, 0).stream().filter(this::canPlaceCrystal).collect(Collectors.toList()));
-        return positions;
+    private List<EntityLivingBase> findTargets() {
+        // Targets further than 13 blocks from every candidate block are skipped in findBest anyway
+        return EntityIndex.INSTANCE.withinRadius(mc.player, range.getValue() + 14, EntityLivingBase.class, entity -> EntityFlags.isTarget(entity, players.getValue(), animals.getValue(), mobs.getValue())
+                && !EntityFlags.is(entity, EntityFlags.FRIEND) && entity != mc.player && entity.getHealth() > 0);
+    }
+
+    /**
+     * Exposure is the expensive part of the damage: works it out for every pair that can matter in one go
+     */
+    private void prepareExposures(List<BlockPos> blocks, List<EntityLivingBase> entities) {
+        exposures.clear();
+        exposures.prepare(mc.world, blocks, entities, (entity, pos) -> entity.getDistanceSq(pos) < 169);
     }
 
-    public List<BlockPos> getSphere(BlockPos loc, float r, int h, boolean hollow, boolean sphere, int plus_y) {
-        List<BlockPos> circleblocks = new ArrayList<>();
-        int cx = loc.getX();
-        int cy = loc.getY();
-        int cz = loc.getZ();
-        for (int x = cx - (int) r; x <= cx + r; x++) {
-            for (int z = cz - (int) r; z <= cz + r; z++) {
-                for (int y = (sphere ? cy - (int) r : cy); y < (sphere ? cy + r : cy + h); y++) {
-                    double dist = (cx - x) * (cx - x) + (cz - z) * (cz - z) + (sphere ? (cy - y) * (cy - y) : 0);
-                    if (dist < r * r && !(hollow && dist < (r - 1) * (r - 1))) {
-                        BlockPos l = new BlockPos(x, y + plus_y, z);
-                        circleblocks.add(l);
+    /**
+     * @return the block to place on that does the most damage to a target without hurting us too much, or null if there
+     * is none worth it. The target is left in {@link #bestTarget}.
+     */
+    private BlockPos findBest(List<BlockPos> blocks, List<EntityLivingBase> entities, DamageFunction damageFunction) {
+        BlockPos q = null;
+        double damage = .5;
+        bestTarget = null;
+        for (EntityLivingBase entity : entities) {
+            for (BlockPos blockPos : blocks) {
+                double b = entity.getDistanceSq(blockPos);
+                if (b >= 169) {
+                    continue; // If this block if further than 13 (3.6^2, less calc) blocks, ignore it. It'll take no or very little damage
+                }
+                double d = damageFunction.damage(blockPos, entity);
+                if (d > damage) {
+                    double self = damageFunction.damage(blockPos, mc.player); // When memoised, once per block however many targets there are
+                    // If this deals more damage to ourselves than it does to our target, continue. This is only ignored if the crystal is sure to kill our target but not us.
+                    // Also continue if our crystal is going to hurt us.. alot
+                    if ((self > d && !(d < entity.getHealth())) || self - .5 > mc.player.getHealth()) {
+                        continue;
                     }
+                    damage = d;
+                    q = blockPos;
+                    bestTarget = entity;
                 }
             }
         }
-        return circleblocks;
+        return q;
+    }
+
+    /**
+     * Times picking a block the old way, tracing every exposure when it's needed, against the cached way, on the same
+     * candidates and targets. For {@code ;perf exposure compare}.
+     *
+     * @return total nanoseconds spent uncached and cached over all runs, the number of candidate blocks and of targets
+     */
+    public long[] compareDamagePaths(int runs) {
+        List<BlockPos> blocks = findCrystalBlocks();
+        if (isDisabled()) bases.invalidateAll(); // Nothing keeps them up to date while disabled
+        List<EntityLivingBase> entities = findTargets();
+        long uncached = 0, cached = 0;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            findBest(blocks, entities, (pos, entity) -> calculateDamage(pos.x + .5, pos.y + 1, pos.z + .5, entity));
+            uncached += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            prepareExposures(blocks, entities);
+            findBest(blocks, entities, this::calculateDamage);
+            cached += System.nanoTime() - start;
+        }
+        exposures.clear();
+        return new long[]{uncached, cached, blocks.size(), entities.size()};
+    }
+
+    private interface DamageFunction {
+        double damage(BlockPos base, Entity entity);
+    }
+
+    private List<BlockPos> findCrystalBlocks() {
+        // Anything this close to the player could be in the way of a crystal on a block in range
+        List<Entity> entities = EntityIndex.INSTANCE.withinRadius(mc.player, range.getValue() + 4, Entity.class, null);
+        return bases.update(mc.world, getPlayerPos(), range.getValue().floatValue(), entities);
     }
 
     public static float calculateDamage(double posX, double posY, double posZ, Entity entity) {
+        return calculateDamage(posX, posY, posZ, entity, entity.world.getBlockDensity(new Vec3d(posX, posY, posZ), entity.getEntityBoundingBox()));
+    }
+
+    /**
+     * Damage from a crystal placed on {@code base}, with the exposure taken from this tick's cache
+     */
+    private float calculateDamage(BlockPos base, Entity entity) {
+        return calculateDamage(base.x + .5, base.y + 1, base.z + .5, entity, exposures.get(mc.world, base, entity));
+    }
+
+    /**
+     * @param blockDensity how exposed the entity is to the explosion, see {@link net.minecraft.world.World#getBlockDensity}
+     */
+    public static float calculateDamage(double posX, double posY, double posZ, Entity entity, float blockDensity) {
         float doubleExplosionSize = 6.0F * 2.0F;
         double distancedsize = entity.getDistance(posX, posY, posZ) / (double) doubleExplosionSize;
-        Vec3d vec3d = new Vec3d(posX, posY, posZ);
-        double blockDensity = (double) entity.world.getBlockDensity(vec3d, entity.getEntityBoundingBox());
         double v = (1.0D - distancedsize) * blockDensity;
         float damage = (float) ((int) ((v * v + v) / 2.0D * 7.0D * (double) doubleExplosionSize + 1.0D));
         double finald = 1;
         /*if (entity instanceof EntityLivingBase)
             finald = getBlastReduction((EntityLivingBase) entity,getDamageMultiplied(damage));*/
         if (entity instanceof EntityLivingBase) {
-            finald = getBlastReduction((EntityLivingBase) entity, getDamageMultiplied(damage), new Explosion(mc.world, null, posX, posY, posZ, 6F, false, true));
+            finald = getBlastReduction((EntityLivingBase) entity, getDamageMultiplied(damage), EXPLOSION);
         }
         return (float) finald;
     }
 
+    /**
+     * What {@link DamageSource#causeExplosionDamage(Explosion)} makes of a crystal explosion, which has no placer
+     */
+    private static final DamageSource EXPLOSION = DamageSource.causeExplosionDamage((EntityLivingBase) null);
+
     public static float getBlastReduction(EntityLivingBase entity, float damage, Explosion explosion) {
+        return getBlastReduction(entity, damage, DamageSource.causeExplosionDamage(explosion));
+    }
+
+    public static float getBlastReduction(EntityLivingBase entity, float damage, DamageSource ds) {
         if (entity instanceof EntityPlayer) {
             EntityPlayer ep = (EntityPlayer) entity;
-            DamageSource ds = DamageSource.causeExplosionDamage(explosion);
             damage = CombatRules.getDamageAfterAbsorb(damage, (float) ep.getTotalArmorValue(), (float) ep.getEntityAttribute(SharedMonsterAttributes.ARMOR_TOUGHNESS).getAttributeValue());
 
             int k = EnchantmentHelper.getEnchantmentModifierDamage(ep.getArmorInventoryList(), ds);
@@ -339,19 +395,18 @@ public class CrystalAura extends Module {
     }
 
 
-    @EventHandler
+    @PacketHandler(CPacketPlayer.class)
     private Listener<PacketEvent.Send> packetListener = new Listener<>(event -> {
-        Packet packet = event.getPacket();
-        if (packet instanceof CPacketPlayer) {
-            if (isSpoofingAngles) {
-                ((CPacketPlayer) packet).yaw = (float) yaw;
-                ((CPacketPlayer) packet).pitch = (float) pitch;
-            }
+        CPacketPlayer packet = (CPacketPlayer) event.getPacket();
+        if (isSpoofingAngles) {
+            packet.yaw = (float) yaw;
+            packet.pitch = (float) pitch;
         }
     });
 
     @Override
     public void onDisable() {
+        bases.invalidateAll(); // Nothing kept it up to date while disabled
         render = null;
         renderEnt = null;
         resetRotation();
@@ -0,0 +1,204 @@
+package me.zeroeightsix.kami.module.modules.combat;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import me.zeroeightsix.kami.util.WorldQuery;
+import net.minecraft.block.Block;
+import net.minecraft.entity.Entity;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The blocks around the player a crystal can be placed on: obsidian or bedrock with two blocks of air above.
+ * <p>
+ * Which blocks those are hardly changes from one tick to the next, so they are kept in a set and only checked again
+ * when something could have changed them: blocks changing ({@link #invalidate(BlockPos)}), chunks loading
+ * ({@link #invalidateAll()}) or the player stepping into another block, which only checks the blocks that came into
+ * range. Whether an entity is standing in the way is the only thing checked every tick.
+ * <p>
+ * Main thread only.
+ */
+final class CrystalBases {
+
+    /**
+     * Offsets of every block in a sphere of the given radius, as x, y, z triples
+     */
+    private static final HashMap<Float, int[]> offsetTables = new HashMap<>();
+
+    private final LongOpenHashSet bases = new LongOpenHashSet();
+    private LongOpenHashSet dirty = new LongOpenHashSet();
+    /**
+     * Last tick's dirty blocks, checked once more: a packet listener may run before the game has applied the packet
+     */
+    private LongOpenHashSet recheck = new LongOpenHashSet();
+
+    private boolean rebuild = true;
+    private World world;
+    private float radius;
+    private int centreX, centreY, centreZ;
+
+    /**
+     * Checks the given block again, and the two below it (which it could be the air above of)
+     */
+    void invalidate(BlockPos changed) {
+        for (int i = 0; i < 3; i++) dirty.add(pack(changed.x, changed.y - i, changed.z));
+    }
+
+    void invalidateAll() {
+        rebuild = true;
+    }
+
+    /**
+     * @return whether the given chunk has any blocks in range
+     */
+    boolean isNear(int chunkX, int chunkZ) {
+        int reach = (int) Math.ceil(radius);
+        return !rebuild && (chunkX << 4) <= centreX + reach && (chunkX << 4) + 15 >= centreX - reach
+                && (chunkZ << 4) <= centreZ + reach && (chunkZ << 4) + 15 >= centreZ - reach;
+    }
+
+    /**
+     * Brings the set up to date around the given centre
+     *
+     * @param entities entities that could stand in the way of a crystal
+     * @return the blocks a crystal can be placed on right now
+     */
+    List<BlockPos> update(World world, BlockPos centre, float radius, List<Entity> entities) {
+        int[] offsets = offsetTables.computeIfAbsent(radius, CrystalBases::buildOffsets);
+
+        if (rebuild || radius != this.radius || world != this.world) {
+            rebuild = false;
+            this.world = world;
+            this.radius = radius;
+            moveTo(centre);
+            bases.clear();
+            dirty.clear();
+            recheck.clear();
+            for (int i = 0; i < offsets.length; i += 3)
+                check(world, centreX + offsets[i], centreY + offsets[i + 1], centreZ + offsets[i + 2]);
+        } else {
+            if (centre.x != centreX || centre.y != centreY || centre.z != centreZ) {
+                int oldX = centreX, oldY = centreY, oldZ = centreZ;
+                moveTo(centre);
+                for (LongIterator iterator = bases.iterator(); iterator.hasNext(); ) {
+                    long key = iterator.nextLong();
+                    if (!inRange(unpackX(key), unpackY(key), unpackZ(key))) iterator.remove();
+                }
+                for (int i = 0; i < offsets.length; i += 3) {
+                    int x = centreX + offsets[i], y = centreY + offsets[i + 1], z = centreZ + offsets[i + 2];
+                    if (!inSphere(x - oldX, y - oldY, z - oldZ)) check(world, x, y, z); // Only blocks that came into range
+                }
+            }
+
+            recheck.addAll(dirty);
+            for (LongIterator iterator = recheck.iterator(); iterator.hasNext(); ) {
+                long key = iterator.nextLong();
+                int x = unpackX(key), y = unpackY(key), z = unpackZ(key);
+                if (inRange(x, y, z)) check(world, x, y, z);
+                else bases.remove(key);
+            }
+            recheck.clear();
+            LongOpenHashSet swap = recheck;
+            recheck = dirty;
+            dirty = swap;
+        }
+
+        List<BlockPos> free = new ArrayList<>();
+        for (LongIterator iterator = bases.iterator(); iterator.hasNext(); ) {
+            long key = iterator.nextLong();
+            int x = unpackX(key), y = unpackY(key), z = unpackZ(key);
+            if (!isOccupied(entities, x, y + 1, z)) free.add(new BlockPos(x, y, z));
+        }
+        return free;
+    }
+
+    int size() {
+        return bases.size();
+    }
+
+    private void moveTo(BlockPos centre) {
+        centreX = centre.x;
+        centreY = centre.y;
+        centreZ = centre.z;
+    }
+
+    private void check(World world, int x, int y, int z) {
+        long key = pack(x, y, z);
+        if (isBase(world, x, y, z)) bases.add(key);
+        else bases.remove(key);
+    }
+
+    private boolean isBase(World world, int x, int y, int z) {
+        Block base = WorldQuery.getBlock(world, x, y, z);
+        return (base == Blocks.BEDROCK || base == Blocks.OBSIDIAN)
+                && WorldQuery.getBlock(world, x, y + 1, z) == Blocks.AIR
+                && WorldQuery.getBlock(world, x, y + 2, z) == Blocks.AIR;
+    }
+
+    /**
+     * Same test as {@code getEntitiesWithinAABB(Entity.class, new AxisAlignedBB(x, y, z))}, without the allocations
+     */
+    private static boolean isOccupied(List<Entity> entities, int x, int y, int z) {
+        for (Entity entity : entities) {
+            AxisAlignedBB box = entity.getEntityBoundingBox();
+            if (box.minX < x + 1 && box.maxX > x && box.minY < y + 1 && box.maxY > y && box.minZ < z + 1 && box.maxZ > z)
+                return true;
+        }
+        return false;
+    }
+
+    private boolean inRange(int x, int y, int z) {
+        return inSphere(x - centreX, y - centreY, z - centreZ);
+    }
+
+    private boolean inSphere(int dx, int dy, int dz) {
+        return dx * dx + dy * dy + dz * dz < radius * radius;
+    }
+
+    /**
+     * Every block less than {@code radius} away from the centre, relative to it
+     */
+    private static int[] buildOffsets(float radius) {
+        int reach = (int) Math.ceil(radius);
+        int[] offsets = new int[3 * (2 * reach + 1) * (2 * reach + 1) * (2 * reach + 1)];
+        int n = 0;
+        for (int dx = -reach; dx <= reach; dx++) {
+            for (int dz = -reach; dz <= reach; dz++) {
+                for (int dy = -reach; dy <= reach; dy++) {
+                    if (dx * dx + dy * dy + dz * dz >= radius * radius) continue;
+                    offsets[n++] = dx;
+                    offsets[n++] = dy;
+                    offsets[n++] = dz;
+                }
+            }
+        }
+        int[] trimmed = new int[n];
+        System.arraycopy(offsets, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    // Same layout as BlockPos#toLong
+
+    private static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) y & 0xFFF) << 26 | ((long) z & 0x3FFFFFF);
+    }
+
+    private static int unpackX(long key) {
+        return (int) (key >> 38);
+    }
+
+    private static int unpackY(long key) {
+        return (int) (key << 26 >> 52);
+    }
+
+    private static int unpackZ(long key) {
+        return (int) (key << 38 >> 38);
+    }
+
+}
@@ -1,7 +1,7 @@
 package me.zeroeightsix.kami.module.modules.misc;
 
-import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.PacketHandler;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.Module;
 import me.zeroeightsix.kami.setting.Setting;
@@ -18,15 +18,13 @@ public class CustomChat extends Module {
 
     private final String KAMI_SUFFIX = " \u23D0 \u1D0B\u1D00\u1D0D\u026A";
 
-    @EventHandler
+    @PacketHandler(CPacketChatMessage.class)
     public Listener<PacketEvent.Send> listener = new Listener<>(event -> {
-        if (event.getPacket() instanceof CPacketChatMessage) {
-            String s = ((CPacketChatMessage) event.getPacket()).getMessage();
-            if (s.startsWith("/") && !commands.getValue()) return;
-            s += KAMI_SUFFIX;
-            if (s.length() >= 256) s = s.substring(0,256);
-            ((CPacketChatMessage) event.getPacket()).message = s;
-        }
+        String s = ((CPacketChatMessage) event.getPacket()).getMessage();
+        if (s.startsWith("/") && !commands.getValue()) return;
+        s += KAMI_SUFFIX;
+        if (s.length() >= 256) s = s.substring(0,256);
+        ((CPacketChatMessage) event.getPacket()).message = s;
     });
 
 }
@@ -1,7 +1,7 @@
 package me.zeroeightsix.kami.module.modules.movement;
 
-import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.PacketHandler;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.Module;
 import net.minecraft.network.play.client.CPacketPlayer;
@@ -12,11 +12,9 @@ import net.minecraft.network.play.client.CPacketPlayer;
 @Module.Info(name = "AntiHunger", category = Module.Category.MOVEMENT, description = "Lose hunger less fast. Might cause ghostblocks.")
 public class AntiHunger extends Module {
 
-    @EventHandler
+    @PacketHandler(CPacketPlayer.class)
     public Listener<PacketEvent.Send> packetListener = new Listener<>(event -> {
-        if (event.getPacket() instanceof CPacketPlayer) {
-            ((CPacketPlayer) event.getPacket()).onGround = false;
-        }
+        ((CPacketPlayer) event.getPacket()).onGround = false;
     });
 
 }
@@ -3,11 +3,13 @@ package me.zeroeightsix.kami.module.modules.movement;
 import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
 import me.zeroeightsix.kami.event.KamiEvent;
+import me.zeroeightsix.kami.event.PacketHandler;
 import me.zeroeightsix.kami.event.events.AddCollisionBoxToListEvent;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.Module;
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import me.zeroeightsix.kami.util.EntityUtil;
+import me.zeroeightsix.kami.util.WorldQuery;
 import me.zeroeightsix.kami.util.Wrapper;
 import net.minecraft.block.BlockLiquid;
 import net.minecraft.entity.Entity;
@@ -27,7 +29,7 @@ public class Jesus extends Module {
 
     @Override
     public void onUpdate() {
-        if (!ModuleManager.isModuleEnabled("Freecam")) {
+        if (!Modules.FREECAM.isEnabled()) {
             if (EntityUtil.isInWater(mc.player) && !mc.player.isSneaking()) {
                 mc.player.motionY = 0.1;
                 if (mc.player.getRidingEntity() != null && !(mc.player.getRidingEntity() instanceof EntityBoat)) {
@@ -54,14 +56,12 @@ public class Jesus extends Module {
         }
     });
 
-    @EventHandler
+    @PacketHandler(CPacketPlayer.class)
     Listener<PacketEvent.Send> packetEventSendListener = new Listener<>(event -> {
         if (event.getEra() == KamiEvent.Era.PRE) {
-            if (event.getPacket() instanceof CPacketPlayer) {
-                if (EntityUtil.isAboveWater(mc.player, true) && !EntityUtil.isInWater(mc.player) && !isAboveLand(mc.player)) {
-                    int ticks = mc.player.ticksExisted % 2;
-                    if (ticks == 0) ((CPacketPlayer) event.getPacket()).y += 0.02D;
-                }
+            if (EntityUtil.isAboveWater(mc.player, true) && !EntityUtil.isInWater(mc.player) && !isAboveLand(mc.player)) {
+                int ticks = mc.player.ticksExisted % 2;
+                if (ticks == 0) ((CPacketPlayer) event.getPacket()).y += 0.02D;
             }
         }
     });
@@ -70,16 +70,9 @@ public class Jesus extends Module {
     private static boolean isAboveLand(Entity entity){
         if(entity == null) return false;
 
-        double y = entity.posY - 0.01;
-
-        for(int x = MathHelper.floor(entity.posX); x < MathHelper.ceil(entity.posX); x++)
-            for (int z = MathHelper.floor(entity.posZ); z < MathHelper.ceil(entity.posZ); z++) {
-                BlockPos pos = new BlockPos(x, MathHelper.floor(y), z);
-
-                if (Wrapper.getWorld().getBlockState(pos).getBlock().isFullBlock(Wrapper.getWorld().getBlockState(pos))) return true;
-            }
-
-        return false;
+        int y = MathHelper.floor(entity.posY - 0.01);
+        return WorldQuery.anyMatch(Wrapper.getWorld(), MathHelper.floor(entity.posX), y, MathHelper.floor(entity.posZ),
+                MathHelper.ceil(entity.posX) - 1, y, MathHelper.ceil(entity.posZ) - 1, state -> state.getBlock().isFullBlock(state));
     }
 
     private static boolean isAboveBlock(Entity entity, BlockPos pos) {
@@ -3,6 +3,7 @@ package me.zeroeightsix.kami.module.modules.movement;
 import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
 import me.zeroeightsix.kami.event.KamiEvent;
+import me.zeroeightsix.kami.event.PacketHandler;
 import me.zeroeightsix.kami.event.events.EntityEvent;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.Module;
@@ -20,7 +21,7 @@ public class Velocity extends Module {
     private Setting<Float> horizontal = register(Settings.f("Horizontal", 0));
     private Setting<Float> vertical = register(Settings.f("Vertical", 0));
 
-    @EventHandler
+    @PacketHandler({SPacketEntityVelocity.class, SPacketExplosion.class})
     private Listener<PacketEvent.Receive> packetEventListener = new Listener<>(event -> {
         if (event.getEra() == KamiEvent.Era.PRE) {
             if (event.getPacket() instanceof SPacketEntityVelocity) {
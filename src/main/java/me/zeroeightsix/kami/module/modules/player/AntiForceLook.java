@@ -1,7 +1,7 @@
 package me.zeroeightsix.kami.module.modules.player;
 
-import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.PacketHandler;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.Module;
 import net.minecraft.network.play.server.SPacketPlayerPosLook;
@@ -12,13 +12,11 @@ import net.minecraft.network.play.server.SPacketPlayerPosLook;
 @Module.Info(name = "AntiForceLook", category = Module.Category.PLAYER)
 public class AntiForceLook extends Module {
 
-    @EventHandler
+    @PacketHandler(SPacketPlayerPosLook.class)
     Listener<PacketEvent.Receive> receiveListener = new Listener<>(event -> {
-        if (event.getPacket() instanceof SPacketPlayerPosLook) {
-            SPacketPlayerPosLook packet = (SPacketPlayerPosLook) event.getPacket();
-            packet.yaw = mc.player.rotationYaw;
-            packet.pitch = mc.player.rotationPitch;
-        }
+        SPacketPlayerPosLook packet = (SPacketPlayerPosLook) event.getPacket();
+        packet.yaw = mc.player.rotationYaw;
+        packet.pitch = mc.player.rotationPitch;
     });
 
 }
@@ -1,7 +1,8 @@
 package me.zeroeightsix.kami.module.modules.player;
 
-import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.PacketHandler;
+import me.zeroeightsix.kami.event.ThreadMode;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.Module;
 import net.minecraft.init.Items;
@@ -14,22 +15,22 @@ import net.minecraft.network.play.server.SPacketSoundEffect;
 @Module.Info(name = "AutoFish", category = Module.Category.MISC, description = "Automatically catch fish")
 public class AutoFish extends Module {
 
-    @EventHandler
+    @PacketHandler(value = SPacketSoundEffect.class, thread = ThreadMode.MAIN)
     private Listener<PacketEvent.Receive> receiveListener = new Listener<>(event -> {
-        if (mc.player != null && (mc.player.getHeldItemMainhand().getItem() == Items.FISHING_ROD || mc.player.getHeldItemOffhand().getItem() == Items.FISHING_ROD) && event.getPacket() instanceof SPacketSoundEffect && SoundEvents.ENTITY_BOBBER_SPLASH.equals(((SPacketSoundEffect) event.getPacket()).getSound())) {
+        if (mc.player != null && (mc.player.getHeldItemMainhand().getItem() == Items.FISHING_ROD || mc.player.getHeldItemOffhand().getItem() == Items.FISHING_ROD) && SoundEvents.ENTITY_BOBBER_SPLASH.equals(((SPacketSoundEffect) event.getPacket()).getSound())) {
             new Thread(() -> {
                 try {
                     Thread.sleep(200);
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
-                mc.rightClickMouse();
+                mc.addScheduledTask(() -> mc.rightClickMouse());
                 try {
                     Thread.sleep(200);
                 } catch (InterruptedException e) {
                     e.printStackTrace();
                 }
-                mc.rightClickMouse();
+                mc.addScheduledTask(() -> mc.rightClickMouse());
             }).start();
         }
     });
@@ -1,7 +1,7 @@
 package me.zeroeightsix.kami.module.modules.player;
 
-import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.PacketHandler;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.Module;
 import net.minecraft.client.entity.EntityOtherPlayerMP;
@@ -19,9 +19,9 @@ import java.util.Queue;
 public class Blink extends Module {
 
     Queue<CPacketPlayer> packets = new LinkedList<>();
-    @EventHandler
+    @PacketHandler(CPacketPlayer.class)
     public Listener<PacketEvent.Send> listener = new Listener<>(event -> {
-        if (isEnabled() && event.getPacket() instanceof CPacketPlayer) {
+        if (isEnabled()) {
             event.cancel();
             packets.add((CPacketPlayer) event.getPacket());
         }
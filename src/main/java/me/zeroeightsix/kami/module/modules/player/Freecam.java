@@ -2,6 +2,7 @@ package me.zeroeightsix.kami.module.modules.player;
 
 import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.PacketHandler;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.event.events.PlayerMoveEvent;
 import me.zeroeightsix.kami.module.Module;
@@ -96,11 +97,9 @@ public class Freecam extends Module {
         event.setCanceled(true);
     });
 
-    @EventHandler
+    @PacketHandler({CPacketPlayer.class, CPacketInput.class})
     private Listener<PacketEvent.Send> sendListener = new Listener<>(event -> {
-        if (event.getPacket() instanceof CPacketPlayer || event.getPacket() instanceof CPacketInput) {
-            event.cancel();
-        }
+        event.cancel();
     });
 
 }
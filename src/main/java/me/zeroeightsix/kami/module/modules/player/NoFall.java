@@ -1,12 +1,13 @@
 package me.zeroeightsix.kami.module.modules.player;
 
-import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.PacketHandler;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.Module;
 import me.zeroeightsix.kami.setting.Setting;
 import me.zeroeightsix.kami.setting.Settings;
 import me.zeroeightsix.kami.util.EntityUtil;
+import me.zeroeightsix.kami.util.RaycastService;
 import net.minecraft.init.Items;
 import net.minecraft.network.play.client.CPacketPlayer;
 import net.minecraft.util.EnumHand;
@@ -25,9 +26,9 @@ public class NoFall extends Module {
 
     private long last = 0;
 
-    @EventHandler
+    @PacketHandler(CPacketPlayer.class)
     public Listener<PacketEvent.Send> sendListener = new Listener<>(event -> {
-        if (event.getPacket() instanceof CPacketPlayer && packet.getValue()) {
+        if (packet.getValue()) {
             ((CPacketPlayer) event.getPacket()).onGround = true;
         }
     });
@@ -36,7 +37,7 @@ public class NoFall extends Module {
     public void onUpdate() {
         if (bucket.getValue() && mc.player.fallDistance >= distance.getValue() && !EntityUtil.isAboveWater(mc.player) && System.currentTimeMillis() - last > 100) {
             Vec3d posVec = mc.player.getPositionVector();
-            RayTraceResult result = mc.world.rayTraceBlocks(posVec, posVec.add(0, -5.33f, 0), true, true, false);
+            RayTraceResult result = RaycastService.INSTANCE.trace(mc.world, posVec.x, posVec.y, posVec.z, posVec.x, posVec.y - 5.33f, posVec.z, true, true, false);
             if (result != null && result.typeOfHit == RayTraceResult.Type.BLOCK) {
                 EnumHand hand = EnumHand.MAIN_HAND;
                 if (mc.player.getHeldItemOffhand().getItem() == Items.WATER_BUCKET) hand = EnumHand.OFF_HAND;
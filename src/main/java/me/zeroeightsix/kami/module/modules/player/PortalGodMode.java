@@ -1,7 +1,7 @@
 package me.zeroeightsix.kami.module.modules.player;
 
-import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.PacketHandler;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.Module;
 import net.minecraft.network.play.client.CPacketConfirmTeleport;
@@ -15,9 +15,9 @@ import java.util.Queue;
 @Module.Info(name = "PortalGodMode", category = Module.Category.PLAYER)
 public class PortalGodMode extends Module {
 
-    @EventHandler
+    @PacketHandler(CPacketConfirmTeleport.class)
     public Listener<PacketEvent.Send> listener = new Listener<>(event -> {
-        if (isEnabled() && event.getPacket() instanceof CPacketConfirmTeleport) {
+        if (isEnabled()) {
             event.cancel();
         }
     });
@@ -4,13 +4,14 @@ import com.google.common.collect.Lists;
 import me.zeroeightsix.kami.command.Command;
 import me.zeroeightsix.kami.event.events.RenderEvent;
 import me.zeroeightsix.kami.module.Module;
-import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.Modules;
 import me.zeroeightsix.kami.setting.Setting;
 import me.zeroeightsix.kami.setting.Settings;
 import me.zeroeightsix.kami.setting.builder.SettingBuilder;
 import me.zeroeightsix.kami.util.EntityUtil;
 import me.zeroeightsix.kami.util.GeometryMasks;
 import me.zeroeightsix.kami.util.KamiTessellator;
+import me.zeroeightsix.kami.util.WorldQuery;
 import me.zeroeightsix.kami.util.Wrapper;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockContainer;
@@ -46,17 +47,12 @@ public class Scaffold extends Module {
     private Setting<Integer> future = register(Settings.integerBuilder("Ticks").withMinimum(0).withMaximum(60).withValue(2));
 
     private boolean hasNeighbour(BlockPos blockPos) {
-        for (EnumFacing side : EnumFacing.values()) {
-            BlockPos neighbour = blockPos.offset(side);
-            if(!Wrapper.getWorld().getBlockState(neighbour).getMaterial().isReplaceable())
-                return true;
-        }
-        return false;
+        return WorldQuery.neighbourMask(Wrapper.getWorld(), blockPos.x, blockPos.y, blockPos.z, state -> !state.getMaterial().isReplaceable()) != 0;
     }
 
     @Override
     public void onUpdate() {
-        if (isDisabled() || mc.player == null || ModuleManager.isModuleEnabled("Freecam")) return;
+        if (isDisabled() || mc.player == null || Modules.FREECAM.isEnabled()) return;
         Vec3d vec3d = EntityUtil.getInterpolatedPos(mc.player, future.getValue());
         BlockPos blockPos = new BlockPos(vec3d).down();
         BlockPos belowBlockPos = blockPos.down();
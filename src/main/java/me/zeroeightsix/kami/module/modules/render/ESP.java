@@ -2,14 +2,16 @@ package me.zeroeightsix.kami.module.modules.render;
 
 import me.zeroeightsix.kami.event.events.RenderEvent;
 import me.zeroeightsix.kami.module.Module;
+import me.zeroeightsix.kami.module.QualityScalable;
 import me.zeroeightsix.kami.setting.Setting;
 import me.zeroeightsix.kami.setting.Settings;
-import me.zeroeightsix.kami.util.EntityUtil;
+import me.zeroeightsix.kami.util.Culling;
+import me.zeroeightsix.kami.util.EntityFlags;
+import me.zeroeightsix.kami.util.EntityIndex;
+import me.zeroeightsix.kami.util.FramePositions;
 import me.zeroeightsix.kami.util.Wrapper;
 import net.minecraft.client.renderer.GlStateManager;
 import net.minecraft.entity.EntityLivingBase;
-import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.util.math.Vec3d;
 import org.lwjgl.opengl.GL11;
 
 import static org.lwjgl.opengl.GL11.*;
@@ -18,17 +20,33 @@ import static org.lwjgl.opengl.GL11.*;
  * Created by 086 on 14/12/2017.
  */
 @Module.Info(name = "ESP", category = Module.Category.RENDER)
-public class ESP extends Module {
+public class ESP extends Module implements QualityScalable {
 
     private Setting<ESPMode> mode = register(Settings.e("Mode", ESPMode.RECTANGLE));
     private Setting<Boolean> players = register(Settings.b("Players", true));
     private Setting<Boolean> animals = register(Settings.b("Animals", false));
     private Setting<Boolean> mobs = register(Settings.b("Mobs", false));
+    private Setting<Double> smoothDistance = register(Settings.d("Smooth Distance", 64));
+
+    private int qualityLevel;
 
     public enum ESPMode {
         RECTANGLE
     }
 
+    /**
+     * 1: no line smoothing
+     */
+    @Override
+    public int getQualityLevels() {
+        return 1;
+    }
+
+    @Override
+    public void setQualityLevel(int level) {
+        qualityLevel = level;
+    }
+
     @Override
     public void onWorldRender(RenderEvent event) {
         if (Wrapper.getMinecraft().getRenderManager().options == null) return;
@@ -36,17 +54,17 @@ public class ESP extends Module {
             case RECTANGLE:
                 boolean isThirdPersonFrontal = Wrapper.getMinecraft().getRenderManager().options.thirdPersonView == 2;
                 float viewerYaw = Wrapper.getMinecraft().getRenderManager().playerViewY;
+                double smoothDistanceSq = qualityLevel >= 1 ? 0 : smoothDistance.getValue() * smoothDistance.getValue();
 
-                mc.world.loadedEntityList.stream()
-                        .filter(EntityUtil::isLiving)
+                EntityIndex.INSTANCE.ofType(EntityLivingBase.class).stream()
                         .filter(entity -> mc.player != entity)
-                        .map(entity -> (EntityLivingBase) entity)
                         .filter(entityLivingBase -> !entityLivingBase.isDead)
-                        .filter(entity -> (players.getValue() && entity instanceof EntityPlayer) || (EntityUtil.isPassive(entity) ? animals.getValue() : mobs.getValue()))
+                        .filter(entity -> EntityFlags.isShown(entity, players.getValue(), animals.getValue(), mobs.getValue()))
+                        .filter(Culling::isVisible)
                         .forEach(e -> {
                             GlStateManager.pushMatrix();
-                            Vec3d pos = EntityUtil.getInterpolatedPos(e, event.getPartialTicks());
-                            GlStateManager.translate(pos.x-mc.getRenderManager().renderPosX, pos.y-mc.getRenderManager().renderPosY, pos.z-mc.getRenderManager().renderPosZ);
+                            int slot = FramePositions.slot(e);
+                            GlStateManager.translate(FramePositions.x(slot), FramePositions.y(slot), FramePositions.z(slot));
                             GlStateManager.glNormal3f(0.0F, 1.0F, 0.0F);
                             GlStateManager.rotate(-viewerYaw, 0.0F, 1.0F, 0.0F);
                             GlStateManager.rotate((float)(isThirdPersonFrontal ? -1 : 1), 1.0F, 0.0F, 0.0F);
@@ -58,13 +76,15 @@ public class ESP extends Module {
                             GlStateManager.enableBlend();
                             GlStateManager.tryBlendFuncSeparate(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE_MINUS_SRC_ALPHA, GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ZERO);
 
-                            if (e instanceof EntityPlayer) glColor3f(1,1,1);
-                            else if (EntityUtil.isPassive(e)) glColor3f(0.11f,0.9f,0.11f);
+                            if (EntityFlags.is(e, EntityFlags.PLAYER)) glColor3f(1,1,1);
+                            else if (EntityFlags.is(e, EntityFlags.PASSIVE)) glColor3f(0.11f,0.9f,0.11f);
                             else glColor3f(0.9f,.1f,.1f);
 
                             GlStateManager.disableTexture2D();
                             glLineWidth(2f);
-                            glEnable( GL_LINE_SMOOTH );
+                            // Smoothing costs fill rate for lines too short to show it
+                            if (Culling.distanceSq(FramePositions.x(slot), FramePositions.y(slot), FramePositions.z(slot)) < smoothDistanceSq) glEnable(GL_LINE_SMOOTH);
+                            else glDisable(GL_LINE_SMOOTH);
                             glBegin(GL_LINE_LOOP);
                             {
                                 glVertex2d(-e.width/2,0);
@@ -76,6 +96,7 @@ public class ESP extends Module {
 
                             GlStateManager.popMatrix();
                         });
+                glDisable(GL_LINE_SMOOTH);
                 GlStateManager.enableDepth();
                 GlStateManager.depthMask(true);
                 GlStateManager.disableTexture2D();
@@ -2,80 +2,119 @@ package me.zeroeightsix.kami.module.modules.render;
 
 import me.zeroeightsix.kami.event.events.RenderEvent;
 import me.zeroeightsix.kami.module.Module;
+import me.zeroeightsix.kami.module.QualityScalable;
 import me.zeroeightsix.kami.setting.Setting;
 import me.zeroeightsix.kami.setting.Settings;
-import me.zeroeightsix.kami.util.EntityUtil;
+import me.zeroeightsix.kami.util.Culling;
+import me.zeroeightsix.kami.util.EntityFlags;
+import me.zeroeightsix.kami.util.EntityIndex;
 import me.zeroeightsix.kami.util.GeometryMasks;
-import me.zeroeightsix.kami.util.KamiTessellator;
-import net.minecraft.client.Minecraft;
-import net.minecraft.client.renderer.GlStateManager;
+import me.zeroeightsix.kami.util.RaycastService;
+import me.zeroeightsix.kami.util.RenderBatch;
 import net.minecraft.entity.EntityLivingBase;
-import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.RayTraceResult;
 import net.minecraft.util.math.Vec3d;
-import org.lwjgl.opengl.GL11;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author 086
  */
 @Module.Info(name = "EyeFinder", description = "Draw lines from entity's heads to where they are looking", category = Module.Category.RENDER)
-public class EyeFinder extends Module {
+public class EyeFinder extends Module implements QualityScalable {
 
     private Setting<Boolean> players = register(Settings.b("Players", true));
     private Setting<Boolean> mobs = register(Settings.b("Mobs", false));
     private Setting<Boolean> animals = register(Settings.b("Animals", false));
 
+    private final List<Sight> sights = new ArrayList<>();
+    private final List<EntityLivingBase> traced = new ArrayList<>();
+    private double[] rays = new double[6 * 16];
+    private RayTraceResult[] results = new RayTraceResult[16];
+    private int qualityLevel;
+    private int frame;
+
     @Override
     public void onWorldRender(RenderEvent event) {
-        mc.world.loadedEntityList.stream()
-                .filter(EntityUtil::isLiving)
-                .filter(entity -> mc.player != entity)
-                .map(entity -> (EntityLivingBase) entity)
-                .filter(entityLivingBase -> !entityLivingBase.isDead)
-                .filter(entity -> (players.getValue() && entity instanceof EntityPlayer) || (EntityUtil.isPassive(entity) ? animals.getValue() : mobs.getValue()))
-                .forEach(this::drawLine);
+        // On lower quality, ray traces are only redone every other frame
+        if (qualityLevel == 0 || (frame++ & 1) == 0) {
+            traced.clear();
+            EntityIndex.INSTANCE.ofType(EntityLivingBase.class).stream()
+                    .filter(entity -> mc.player != entity)
+                    .filter(entityLivingBase -> !entityLivingBase.isDead)
+                    .filter(entity -> EntityFlags.isShown(entity, players.getValue(), animals.getValue(), mobs.getValue()))
+                    .filter(entity -> Culling.isVisible(entity, 6)) // The line can reach 6 blocks out
+                    .forEach(traced::add);
+            trace(mc.getRenderPartialTicks());
+        }
+        for (Sight sight : sights) drawLine(event.getBatch(), sight);
     }
 
-    private void drawLine(EntityLivingBase e) {
-        RayTraceResult result = e.rayTrace(6, Minecraft.getMinecraft().getRenderPartialTicks());
-        if (result == null) return;
-        Vec3d eyes = e.getPositionEyes(Minecraft.getMinecraft().getRenderPartialTicks());
+    /**
+     * 1: ray trace every other frame
+     */
+    @Override
+    public int getQualityLevels() {
+        return 1;
+    }
 
-        GlStateManager.enableDepth();
-        GlStateManager.disableTexture2D();
-        GlStateManager.disableLighting();
+    @Override
+    public void setQualityLevel(int level) {
+        qualityLevel = level;
+    }
 
-        double posx = eyes.x - mc.getRenderManager().renderPosX;
-        double posy = eyes.y - mc.getRenderManager().renderPosY;
-        double posz = eyes.z - mc.getRenderManager().renderPosZ;
-        double posx2 = result.hitVec.x - mc.getRenderManager().renderPosX;
-        double posy2 = result.hitVec.y - mc.getRenderManager().renderPosY;
-        double posz2 = result.hitVec.z - mc.getRenderManager().renderPosZ;
-        GL11.glColor4f(.2f, .1f, .3f, .8f);
-        GlStateManager.glLineWidth(1.5f);
+    /**
+     * Traces where every collected entity is looking, like {@code Entity#rayTrace(6, partialTicks)} does, in one batch
+     */
+    private void trace(float partialTicks) {
+        int count = traced.size();
+        if (results.length < count) {
+            rays = new double[6 * count];
+            results = new RayTraceResult[count];
+        }
+        for (int i = 0; i < count; i++) {
+            EntityLivingBase e = traced.get(i);
+            Vec3d eyes = e.getPositionEyes(partialTicks);
+            Vec3d look = e.getLook(partialTicks);
+            int o = i * 6;
+            rays[o] = eyes.x;
+            rays[o + 1] = eyes.y;
+            rays[o + 2] = eyes.z;
+            rays[o + 3] = eyes.x + look.x * 6;
+            rays[o + 4] = eyes.y + look.y * 6;
+            rays[o + 5] = eyes.z + look.z * 6;
+        }
+        RaycastService.INSTANCE.traceAll(mc.world, rays, count, false, false, true, results);
 
-        GL11.glBegin(GL11.GL_LINES);
-        {
-            GL11.glVertex3d(posx, posy, posz);
-            GL11.glVertex3d(posx2, posy2, posz2);
-            GL11.glVertex3d(posx2, posy2, posz2);
-            GL11.glVertex3d(posx2, posy2, posz2);
+        sights.clear();
+        for (int i = 0; i < count; i++) {
+            if (results[i] == null) continue;
+            int o = i * 6;
+            sights.add(new Sight(new Vec3d(rays[o], rays[o + 1], rays[o + 2]), results[i]));
         }
-        GL11.glEnd();
+    }
+
+    private void drawLine(RenderBatch batch, Sight sight) {
+        Vec3d eyes = sight.eyes;
+        RayTraceResult result = sight.result;
+
+        batch.line(eyes.x, eyes.y, eyes.z, result.hitVec.x, result.hitVec.y, result.hitVec.z, 0xCC33194C, 1.5f, true);
 
         if (result.typeOfHit == RayTraceResult.Type.BLOCK) {
-            KamiTessellator.prepare(GL11.GL_QUADS);
-            GL11.glEnable(GL11.GL_DEPTH_TEST);
             BlockPos b = result.getBlockPos();
-            float x = b.x - .01f;
-            float y = b.y - .01f;
-            float z = b.z - .01f;
-            KamiTessellator.drawBox(KamiTessellator.getBufferBuilder(), x, y, z, 1.01f, 1.01f, 1.01f, 51, 25, 73, 200, GeometryMasks.Quad.ALL);
-            KamiTessellator.release();
+            batch.box(b.x - .01f, b.y - .01f, b.z - .01f, 1.01f, 1.01f, 1.01f, 0xC8331949, GeometryMasks.Quad.ALL, true);
         }
+    }
+
+    private static class Sight {
+        private final Vec3d eyes;
+        private final RayTraceResult result;
 
-        GlStateManager.enableTexture2D();
-        GlStateManager.enableLighting();
+        private Sight(Vec3d eyes, RayTraceResult result) {
+            this.eyes = eyes;
+            this.result = result;
+        }
     }
 }
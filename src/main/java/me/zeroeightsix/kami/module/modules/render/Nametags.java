@@ -3,11 +3,13 @@ package me.zeroeightsix.kami.module.modules.render;
 import me.zeroeightsix.kami.command.Command;
 import me.zeroeightsix.kami.event.events.RenderEvent;
 import me.zeroeightsix.kami.module.Module;
+import me.zeroeightsix.kami.module.QualityScalable;
 import me.zeroeightsix.kami.setting.Setting;
 import me.zeroeightsix.kami.setting.Settings;
-import me.zeroeightsix.kami.util.EntityUtil;
-import me.zeroeightsix.kami.util.Friends;
-import net.minecraft.client.Minecraft;
+import me.zeroeightsix.kami.util.Culling;
+import me.zeroeightsix.kami.util.EntityFlags;
+import me.zeroeightsix.kami.util.EntityIndex;
+import me.zeroeightsix.kami.util.FramePositions;
 import net.minecraft.client.gui.FontRenderer;
 import net.minecraft.client.renderer.*;
 import net.minecraft.client.renderer.block.model.ItemCameraTransforms;
@@ -17,7 +19,6 @@ import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.init.Items;
 import net.minecraft.item.ItemStack;
-import net.minecraft.util.math.Vec3d;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -31,7 +32,7 @@ import static org.lwjgl.opengl.GL11.*;
  * Created by 086 on 19/12/2017.
  */
 @Module.Info(name = "Nametags", description = "Draws descriptive nametags above entities", category = Module.Category.RENDER)
-public class Nametags extends Module {
+public class Nametags extends Module implements QualityScalable {
 
     private Setting<Boolean> players = register(Settings.b("Players", true));
     private Setting<Boolean> animals = register(Settings.b("Animals", false));
@@ -39,8 +40,18 @@ public class Nametags extends Module {
     private Setting<Double> range = register(Settings.d("Range", 200));
     private Setting<Float> scale = register(Settings.floatBuilder("Scale").withMinimum(.5f).withMaximum(10f).withValue(1f).build());
     private Setting<Boolean> health = register(Settings.b("Health", true));
+    private Setting<Double> itemDistance = register(Settings.d("Item Distance", 32));
+
+    /**
+     * How far the item row and the label reach out from the tag's anchor, at a tag scale of 1: six items half a block
+     * apart, with the row drawn above the label
+     */
+    private static final double ITEM_ROW_REACH = 1.5;
+    private static final double ITEM_ROW_HEIGHT = 1.2;
+    private static final double LABEL_HEIGHT = .3;
 
     RenderItem itemRenderer = mc.getRenderItem();
+    private int qualityLevel;
 
     @Override
     public void onWorldRender(RenderEvent event) {
@@ -49,12 +60,12 @@ public class Nametags extends Module {
         GlStateManager.enableTexture2D();
         GlStateManager.disableLighting();
         GlStateManager.disableDepth();
-        Minecraft.getMinecraft().world.loadedEntityList.stream()
-                .filter(EntityUtil::isLiving)
-                .filter(entity -> !EntityUtil.isFakeLocalPlayer(entity))
-                .filter(entity -> (entity instanceof EntityPlayer ? players.getValue() && mc.player != entity : (EntityUtil.isPassive(entity) ? animals.getValue() : mobs.getValue())))
-                .filter(entity -> mc.player.getDistance(entity) < range.getValue())
-                .sorted(Comparator.comparing(entity -> -mc.player.getDistance(entity)))
+        double range = qualityLevel >= 2 ? this.range.getValue() / 2 : this.range.getValue();
+        EntityIndex.INSTANCE.withinRadius(mc.player, range, EntityLivingBase.class, entity -> !EntityFlags.is(entity, EntityFlags.FAKE_LOCAL_PLAYER)
+                && EntityFlags.isTarget(entity, players.getValue(), animals.getValue(), mobs.getValue())
+                && isTagVisible(entity))
+                .stream()
+                .sorted(Comparator.comparingDouble(entity -> -mc.player.getDistanceSq(entity)))
                 .forEach(this::drawNametag);
         GlStateManager.disableTexture2D();
         RenderHelper.disableStandardItemLighting();
@@ -62,14 +73,50 @@ public class Nametags extends Module {
         GlStateManager.enableDepth();
     }
 
+    /**
+     * 1: no items, 2: also half the range
+     */
+    @Override
+    public int getQualityLevels() {
+        return 2;
+    }
+
+    @Override
+    public void setQualityLevel(int level) {
+        qualityLevel = level;
+    }
+
+    /**
+     * Tags grow with distance, so far away they stick out many blocks past the entity: its box is grown by how far the
+     * tag reaches, from its anchor half a block above the entity
+     */
+    private boolean isTagVisible(EntityLivingBase entity) {
+        float distance = mc.player.getDistance(entity);
+        double reach = (mc.fontRenderer.getStringWidth(getLabel(entity)) / 2 + 1) * .025;
+        double height = LABEL_HEIGHT;
+        if (distance <= itemDistance.getValue() && qualityLevel < 1) {
+            reach = Math.max(reach, ITEM_ROW_REACH);
+            height = ITEM_ROW_HEIGHT;
+        }
+        return Culling.isVisible(entity, .5 + getTagScale(distance) * Math.max(reach, height));
+    }
+
+    private float getTagScale(float distance) {
+        return (distance / 8f) * (float) (Math.pow(1.2589254f, this.scale.getValue()));
+    }
+
+    private String getLabel(Entity entityIn) {
+        return entityIn.getName() + (health.getValue() ? " " + Command.SECTIONSIGN() + "c" + Math.round(((EntityLivingBase) entityIn).getHealth() + (entityIn instanceof EntityPlayer ? ((EntityPlayer) entityIn).getAbsorptionAmount() : 0)) : "");
+    }
+
     private void drawNametag(Entity entityIn) {
         GlStateManager.pushMatrix();
 
-        Vec3d interp = EntityUtil.getInterpolatedRenderPos(entityIn, mc.getRenderPartialTicks());
+        int slot = FramePositions.slot(entityIn);
         float yAdd = entityIn.height + 0.5F - (entityIn.isSneaking() ? 0.25F : 0.0F);
-        double x = interp.x;
-        double y = interp.y + yAdd;
-        double z = interp.z;
+        double x = FramePositions.x(slot);
+        double y = FramePositions.y(slot) + yAdd;
+        double z = FramePositions.z(slot);
 
         float viewerYaw = mc.getRenderManager().playerViewY;
         float viewerPitch = mc.getRenderManager().playerViewX;
@@ -79,13 +126,13 @@ public class Nametags extends Module {
         GlStateManager.rotate((float) (isThirdPersonFrontal ? -1 : 1) * viewerPitch, 1.0F, 0.0F, 0.0F);
 
         float f = mc.player.getDistance(entityIn);
-        float m = (f / 8f) * (float) (Math.pow(1.2589254f, this.scale.getValue()));
+        float m = getTagScale(f);
         GlStateManager.scale(m, m, m);
 
         FontRenderer fontRendererIn = mc.fontRenderer;
         GlStateManager.scale(-0.025F, -0.025F, 0.025F);
 
-        String str = entityIn.getName() + (health.getValue() ? " " + Command.SECTIONSIGN() + "c" + Math.round(((EntityLivingBase) entityIn).getHealth() + (entityIn instanceof EntityPlayer ? ((EntityPlayer) entityIn).getAbsorptionAmount() : 0)) : "");
+        String str = getLabel(entityIn);
         int i = fontRendererIn.getStringWidth(str) / 2;
         GlStateManager.enableBlend();
         GlStateManager.tryBlendFuncSeparate(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE_MINUS_SRC_ALPHA, GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ZERO);
@@ -112,12 +159,17 @@ public class Nametags extends Module {
         GlStateManager.enableTexture2D();
 
         GlStateManager.glNormal3f(0.0F, 1.0F, 0.0F);
-        fontRendererIn.drawString(str, -i, 10, entityIn instanceof EntityPlayer ? Friends.isFriend(entityIn.getName()) ? 0x11ee11 : 0xffffff : 0xffffff);
+        fontRendererIn.drawString(str, -i, 10, EntityFlags.is(entityIn, EntityFlags.FRIEND) ? 0x11ee11 : 0xffffff);
         GlStateManager.glNormal3f(0.0F, 0.0F, 0.0F);
         glTranslatef(0, 20, 0);
 
         GlStateManager.scale(-40, -40, 40);
 
+        if (f > itemDistance.getValue() || qualityLevel >= 1) { // Too small to make out anyway
+            GlStateManager.popMatrix();
+            return;
+        }
+
         ArrayList<ItemStack> equipment = new ArrayList<>();
         entityIn.getHeldEquipment().forEach(itemStack -> {
             if (itemStack != null) equipment.add(itemStack);
@@ -2,6 +2,7 @@ package me.zeroeightsix.kami.module.modules.render;
 
 import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.PacketHandler;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import me.zeroeightsix.kami.module.Module;
 import me.zeroeightsix.kami.setting.Setting;
@@ -23,7 +24,7 @@ public class NoRender extends Module {
     private Setting<Boolean> paint = register(Settings.b("Paintings", false));
     private Setting<Boolean> fire = register(Settings.b("Fire"));
 
-    @EventHandler
+    @PacketHandler({SPacketSpawnMob.class, SPacketSpawnGlobalEntity.class, SPacketSpawnObject.class, SPacketSpawnExperienceOrb.class, SPacketSpawnPainting.class})
     public Listener<PacketEvent.Receive> receiveListener = new Listener<>(event -> {
         Packet packet = event.getPacket();
         if ((packet instanceof SPacketSpawnMob && mob.getValue()) ||
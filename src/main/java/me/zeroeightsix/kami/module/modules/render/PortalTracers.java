@@ -1,57 +1,92 @@
 package me.zeroeightsix.kami.module.modules.render;
 
-import me.zero.alpine.listener.EventHandler;
-import me.zero.alpine.listener.Listener;
-import me.zeroeightsix.kami.event.events.ChunkEvent;
 import me.zeroeightsix.kami.event.events.RenderEvent;
 import me.zeroeightsix.kami.module.Module;
 import me.zeroeightsix.kami.setting.Setting;
 import me.zeroeightsix.kami.setting.Settings;
+import me.zeroeightsix.kami.util.ChunkScanService;
 import net.minecraft.block.BlockPortal;
+import net.minecraft.block.state.IBlockState;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.chunk.Chunk;
-import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraft.util.math.ChunkPos;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Created by 086 on 15/12/2017.
  */
-// @Module.Info(name = "PortalTracers", category = Module.Category.RENDER)
+@Module.Info(name = "PortalTracers", description = "Draws tracers to nether portals", category = Module.Category.RENDER)
 public class PortalTracers extends Module {
 
     private Setting<Integer> range = register(Settings.i("Range", 5000));
-    private ArrayList<BlockPos> portals = new ArrayList<>();
-
-    @EventHandler
-    private Listener<ChunkEvent> loadListener = new Listener<>(event -> {
-        Chunk chunk = event.getChunk();
-        // Remove already registered portals from this chunk, allowing removed portals to vanish from tracers and no duplicates to be made
-        portals.removeIf(blockPos -> blockPos.getX() / 16 == chunk.x && blockPos.getZ() / 16 == chunk.z);
-
-        for (ExtendedBlockStorage storage : chunk.getBlockStorageArray()) {
-            if (storage != null) {
-                for (int x = 0; x < 16; x++) {
-                    for (int y = 0; y < 16; y++) {
-                        for (int z = 0; z < 16; z++) {
-                            if (storage.get(x, y, z).getBlock() instanceof BlockPortal) {
-                                int px = chunk.x * 16 + x;
-                                int py = storage.yBase + y;
-                                int pz = chunk.z * 16 + z;
-                                portals.add(new BlockPos(px, py, pz));
-                                y += 6;
+    /**
+     * Portals by chunk, so a reloaded chunk replaces its own and an unloaded one takes them along
+     */
+    private HashMap<Long, List<BlockPos>> portals = new HashMap<>();
+
+    private static final Predicate<IBlockState> IS_PORTAL = state -> state.getBlock() instanceof BlockPortal;
+
+    private final ChunkScanService.Scanner<List<BlockPos>> scanner = new ChunkScanService.Scanner<List<BlockPos>>() {
+        @Override
+        public List<BlockPos> scan(ChunkScanService.Snapshot chunk) {
+            List<BlockPos> found = new ArrayList<>();
+            boolean[] candidates = new boolean[16];
+            boolean any = false;
+            for (int section = 0; section < 16; section++) any |= candidates[section] = chunk.mayContain(section, IS_PORTAL);
+            if (!any) return found;
+            for (int x = 0; x < 16 && !chunk.isCancelled(); x++) {
+                columns:
+                for (int z = 0; z < 16; z++) {
+                    for (int section = 0; section < 16; section++) {
+                        if (!candidates[section]) continue;
+                        for (int y = section << 4; y < (section << 4) + 16; y++) {
+                            if (IS_PORTAL.test(chunk.getBlockState(x, y, z))) {
+                                // One tracer per column of portal blocks, from its lowest block
+                                found.add(new BlockPos(chunk.getX() * 16 + x, y, chunk.getZ() * 16 + z));
+                                continue columns;
                             }
                         }
                     }
                 }
             }
+            return found;
+        }
+
+        @Override
+        public void accept(int chunkX, int chunkZ, List<BlockPos> found) {
+            long key = ChunkPos.asLong(chunkX, chunkZ);
+            if (found.isEmpty()) portals.remove(key);
+            else portals.put(key, found);
         }
-    });
 
+        @Override
+        public void discard(int chunkX, int chunkZ) {
+            portals.remove(ChunkPos.asLong(chunkX, chunkZ));
+        }
+
+        @Override
+        public void discardAll() {
+            portals.clear();
+        }
+    };
+
+    @Override
+    protected void onEnable() {
+        ChunkScanService.INSTANCE.register(scanner);
+    }
+
+    @Override
+    protected void onDisable() {
+        ChunkScanService.INSTANCE.unregister(scanner);
+        portals.clear();
+    }
 
     @Override
     public void onWorldRender(RenderEvent event) {
-        portals.stream().filter(blockPos -> mc.player.getDistance(blockPos.x, blockPos.y, blockPos.z) <= range.getValue())
-                .forEach(blockPos -> Tracers.drawLine(blockPos.x - mc.getRenderManager().renderPosX, blockPos.y - mc.getRenderManager().renderPosY, blockPos.z - mc.getRenderManager().renderPosZ, 0, 0.6f, 0.3f, 0.8f, 1));
+        portals.values().stream().flatMap(List::stream).filter(blockPos -> mc.player.getDistance(blockPos.x, blockPos.y, blockPos.z) <= range.getValue())
+                .forEach(blockPos -> Tracers.drawLine(event.getTracerBatch(), blockPos.x - mc.getRenderManager().renderPosX, blockPos.y - mc.getRenderManager().renderPosY, blockPos.z - mc.getRenderManager().renderPosZ, 0, 0xFF994DCC));
     }
 }
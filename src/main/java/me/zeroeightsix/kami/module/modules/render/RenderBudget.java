@@ -0,0 +1,93 @@
+package me.zeroeightsix.kami.module.modules.render;
+
+import me.zeroeightsix.kami.module.Module;
+import me.zeroeightsix.kami.module.ModuleManager;
+import me.zeroeightsix.kami.module.QualityScalable;
+import me.zeroeightsix.kami.setting.Setting;
+import me.zeroeightsix.kami.setting.Settings;
+
+/**
+ * Watches how long KAMI's world rendering takes each frame and lowers the quality of {@link QualityScalable} modules
+ * while it's over budget.
+ * <p>
+ * One level is dropped once the average has been over budget for {@link #DEGRADE_FRAMES} frames in a row. Quality only
+ * comes back, a level at a time, once the average has stayed well under budget for {@link #RECOVER_FRAMES} frames in a
+ * row, so it doesn't flip back and forth. Every change starts both counts over.
+ */
+@Module.Info(name = "RenderBudget", description = "Lowers render module quality to keep their frame time under a budget", category = Module.Category.RENDER)
+public class RenderBudget extends Module {
+
+    private static final int DEGRADE_FRAMES = 10;
+    private static final int RECOVER_FRAMES = 120;
+    private static final double RECOVER_FACTOR = 0.6; // Recover below 60% of the budget
+
+    private Setting<Double> budget = register(Settings.doubleBuilder("Budget").withMinimum(0.5).withValue(4.0).build());
+
+    private double average; // Milliseconds, smoothed over roughly the last ten frames
+    private double frameAverage;
+    private long lastFrame;
+    private int level;
+    private int framesOver; // In a row, over budget
+    private int framesUnder; // In a row, under the recovery threshold
+
+    /**
+     * Called by {@link ModuleManager} after every world render
+     *
+     * @param nanos time spent in KAMI's world rendering this frame
+     */
+    public void onFrame(long nanos) {
+        long now = System.nanoTime();
+        if (lastFrame != 0) frameAverage = frameAverage * .9 + (now - lastFrame) / 1e6 * .1;
+        lastFrame = now;
+        average = average * .9 + nanos / 1e6 * .1;
+
+        framesOver = average > budget.getValue() ? framesOver + 1 : 0;
+        framesUnder = average < budget.getValue() * RECOVER_FACTOR ? framesUnder + 1 : 0;
+        if (framesOver >= DEGRADE_FRAMES && level < getMaxLevel()) {
+            setLevel(level + 1);
+        } else if (framesUnder >= RECOVER_FRAMES && level > 0) {
+            setLevel(level - 1);
+        }
+    }
+
+    @Override
+    protected void onDisable() {
+        setLevel(0);
+        lastFrame = 0;
+    }
+
+    private void setLevel(int level) {
+        this.level = level;
+        framesOver = 0;
+        framesUnder = 0;
+        for (Module module : ModuleManager.getModules()) {
+            if (module instanceof QualityScalable) {
+                QualityScalable scalable = (QualityScalable) module;
+                scalable.setQualityLevel(Math.min(level, scalable.getQualityLevels()));
+            }
+        }
+    }
+
+    /**
+     * @return the most levels any module can drop; going further wouldn't change anything
+     */
+    private static int getMaxLevel() {
+        int max = 0;
+        for (Module module : ModuleManager.getModules())
+            if (module instanceof QualityScalable) max = Math.max(max, ((QualityScalable) module).getQualityLevels());
+        return max;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    public double getFrameAverage() {
+        return frameAverage;
+    }
+
+}
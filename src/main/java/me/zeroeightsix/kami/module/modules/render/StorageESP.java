@@ -1,27 +1,41 @@
 package me.zeroeightsix.kami.module.modules.render;
 
+import me.zero.alpine.listener.EventHandler;
+import me.zero.alpine.listener.Listener;
+import me.zeroeightsix.kami.event.events.ChunkEvent;
 import me.zeroeightsix.kami.event.events.RenderEvent;
+import me.zeroeightsix.kami.event.events.TileEntityEvent;
 import me.zeroeightsix.kami.module.Module;
+import me.zeroeightsix.kami.module.QualityScalable;
+import me.zeroeightsix.kami.setting.Setting;
+import me.zeroeightsix.kami.setting.Settings;
 import me.zeroeightsix.kami.util.ColourUtils;
+import me.zeroeightsix.kami.util.Culling;
+import me.zeroeightsix.kami.util.EntityIndex;
+import me.zeroeightsix.kami.util.GeometryCache;
 import me.zeroeightsix.kami.util.GeometryMasks;
-import me.zeroeightsix.kami.util.KamiTessellator;
-import me.zeroeightsix.kami.util.Wrapper;
-import net.minecraft.client.renderer.GlStateManager;
+import me.zeroeightsix.kami.util.RenderBatch;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.item.EntityItemFrame;
 import net.minecraft.entity.item.EntityMinecartChest;
 import net.minecraft.item.ItemShulkerBox;
 import net.minecraft.tileentity.*;
+import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
-import org.lwjgl.opengl.GL11;
+import net.minecraft.world.chunk.Chunk;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 /**
  * Created by 086 on 10/12/2017.
  */
 @Module.Info(name = "StorageESP", description = "Draws nice little lines around storage items", category = Module.Category.RENDER)
-public class StorageESP extends Module {
+public class StorageESP extends Module implements QualityScalable {
+
+    private Setting<Double> mergeDistance = register(Settings.d("Merge Distance", 64));
+    private int qualityLevel;
 
     private int getTileEntityColor(TileEntity tileEntity) {
         if(tileEntity instanceof TileEntityChest || tileEntity instanceof TileEntityDispenser || tileEntity instanceof TileEntityShulkerBox)
@@ -46,60 +60,117 @@ public class StorageESP extends Module {
             return -1;
     }
 
+    /**
+     * Tile entities only change when chunks load or tile entities come and go, so their boxes are kept between frames
+     */
+    private final GeometryCache cache = new GeometryCache(this::compile);
+
+    @EventHandler
+    private Listener<ChunkEvent> chunkListener = new Listener<>(event -> cache.invalidate(event.getChunk().x, event.getChunk().z));
+
+    @EventHandler
+    private Listener<net.minecraftforge.event.world.ChunkEvent.Unload> unloadListener = new Listener<>(event -> {
+        if (event.getWorld().isRemote) cache.remove(event.getChunk().x, event.getChunk().z);
+    });
+
+    @EventHandler
+    private Listener<TileEntityEvent.Add> addListener = new Listener<>(event -> invalidateAround(event.getPos()));
+
+    @EventHandler
+    private Listener<TileEntityEvent.Remove> removeListener = new Listener<>(event -> invalidateAround(event.getPos()));
+
     @Override
     public void onWorldRender(RenderEvent event) {
-        ArrayList<Triplet<BlockPos, Integer, Integer>> a = new ArrayList<>();
-        GlStateManager.pushMatrix();
+        cache.setLodDistance(qualityLevel >= 1 ? 16 : mergeDistance.getValue());
+        cache.draw(mc.getRenderManager().renderPosX, mc.getRenderManager().renderPosY, mc.getRenderManager().renderPosZ);
+
+        for (EntityMinecartChest entity : EntityIndex.INSTANCE.ofType(EntityMinecartChest.class))
+            if (Culling.isVisible(entity)) event.getBatch().box(entity.getPosition(), changeAlpha(getEntityColor(entity), 100), GeometryMasks.Quad.ALL);
+        for (EntityItemFrame entity : EntityIndex.INSTANCE.ofType(EntityItemFrame.class)) {
+            int color = getEntityColor(entity);
+            if (color != -1 && Culling.isVisible(entity, 1)) event.getBatch().box(entity.getPosition().add(0, -1, 0), changeAlpha(color, 100), GeometryMasks.Quad.ALL);
+        }
+    }
 
-        for(TileEntity tileEntity : Wrapper.getWorld().loadedTileEntityList) {
-            BlockPos pos = tileEntity.getPos();
+    /**
+     * 1: merge boxes in all but the nearest chunks
+     */
+    @Override
+    public int getQualityLevels() {
+        return 1;
+    }
+
+    @Override
+    public void setQualityLevel(int level) {
+        qualityLevel = level;
+    }
+
+    @Override
+    protected void onEnable() {
+        if (mc.world == null) return;
+        for (TileEntity tileEntity : mc.world.loadedTileEntityList) cache.invalidate(tileEntity.getPos());
+    }
+
+    @Override
+    protected void onDisable() {
+        cache.clear();
+    }
+
+    private void compile(Chunk chunk, RenderBatch batch, boolean far) {
+        if (far) {
+            compileMerged(chunk, batch);
+            return;
+        }
+        for (TileEntity tileEntity : chunk.getTileEntityMap().values()) {
             int color = getTileEntityColor(tileEntity);
+            if (color == -1) continue;
             int side = GeometryMasks.Quad.ALL;
             if (tileEntity instanceof TileEntityChest) {
                 TileEntityChest chest = (TileEntityChest) tileEntity;
+                chest.checkForAdjacentChests(); // Normally done when the chest ticks, which may not have happened yet
                 // Leave only the colliding face and then flip the bits (~) to have ALL but that face
                 if (chest.adjacentChestZNeg != null) side = ~(side & GeometryMasks.Quad.NORTH);
                 if (chest.adjacentChestXPos != null) side = ~(side & GeometryMasks.Quad.EAST);
                 if (chest.adjacentChestZPos != null) side = ~(side & GeometryMasks.Quad.SOUTH);
                 if (chest.adjacentChestXNeg != null) side = ~(side & GeometryMasks.Quad.WEST);
             }
-            if(color != -1) a.add(new Triplet<>(pos, color, side)); //GeometryTessellator.drawCuboid(event.getBuffer(), pos, GeometryMasks.Line.ALL, color);
+            batch.box(tileEntity.getPos(), changeAlpha(color, 100), side);
         }
+    }
 
-        for(Entity entity : Wrapper.getWorld().loadedEntityList) {
-            BlockPos pos = entity.getPosition();
-            int color = getEntityColor(entity);
-            if(color != -1) a.add(new Triplet<>(entity instanceof EntityItemFrame ? pos.add(0, -1, 0) : pos, color, GeometryMasks.Quad.ALL)); //GeometryTessellator.drawCuboid(event.getBuffer(), entity instanceof EntityItemFrame ? pos.add(0, -1, 0) : pos, GeometryMasks.Line.ALL, color);
-        }
+    /**
+     * Far away, rows of same coloured storage along the x axis are drawn as one box
+     */
+    private void compileMerged(Chunk chunk, RenderBatch batch) {
+        List<TileEntity> storage = new ArrayList<>();
+        for (TileEntity tileEntity : chunk.getTileEntityMap().values())
+            if (getTileEntityColor(tileEntity) != -1) storage.add(tileEntity);
+        storage.sort(Comparator.comparing(TileEntity::getPos, Comparator.comparingInt(BlockPos::getY).thenComparingInt(BlockPos::getZ).thenComparingInt(BlockPos::getX)));
 
-        KamiTessellator.prepare(GL11.GL_QUADS);
-        for (Triplet<BlockPos, Integer, Integer> pair : a)
-            KamiTessellator.drawBox(pair.getFirst(), changeAlpha(pair.getSecond(), 100), pair.getThird());
-        KamiTessellator.release();
+        for (int i = 0; i < storage.size(); ) {
+            BlockPos start = storage.get(i).getPos();
+            int color = getTileEntityColor(storage.get(i));
+            int length = 1;
+            while (i + length < storage.size()) {
+                BlockPos next = storage.get(i + length).getPos();
+                if (next.y != start.y || next.z != start.z || next.x != start.x + length || getTileEntityColor(storage.get(i + length)) != color) break;
+                length++;
+            }
+            batch.box(start.x, start.y, start.z, length, 1, 1, changeAlpha(color, 100), GeometryMasks.Quad.ALL, false);
+            i += length;
+        }
+    }
 
-        GlStateManager.popMatrix();
-        GlStateManager.enableTexture2D();
+    /**
+     * Chests next to the changed block may have to drop a face, and they can be in the neighbouring chunk
+     */
+    private void invalidateAround(BlockPos pos) {
+        cache.invalidate(pos);
+        for (EnumFacing facing : EnumFacing.HORIZONTALS) cache.invalidate(pos.offset(facing));
     }
 
     int changeAlpha(int origColor, int userInputedAlpha) {
         origColor = origColor & 0x00ffffff; //drop the previous alpha value
         return (userInputedAlpha << 24) | origColor; //add the one the user inputted
     }
-
-    public class Triplet<T, U, V> {
-
-        private final T first;
-        private final U second;
-        private final V third;
-
-        public Triplet(T first, U second, V third) {
-            this.first = first;
-            this.second = second;
-            this.third = third;
-        }
-
-        public T getFirst() { return first; }
-        public U getSecond() { return second; }
-        public V getThird() { return third; }
-    }
 }
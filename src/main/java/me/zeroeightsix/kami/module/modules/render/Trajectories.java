@@ -2,9 +2,10 @@ package me.zeroeightsix.kami.module.modules.render;
 
 import me.zeroeightsix.kami.event.events.RenderEvent;
 import me.zeroeightsix.kami.module.Module;
+import me.zeroeightsix.kami.util.Culling;
+import me.zeroeightsix.kami.util.EntityIndex;
 import me.zeroeightsix.kami.util.GeometryMasks;
 import me.zeroeightsix.kami.util.HueCycler;
-import me.zeroeightsix.kami.util.KamiTessellator;
 import me.zeroeightsix.kami.util.TrajectoryCalculator;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.util.math.BlockPos;
@@ -24,19 +25,29 @@ public class Trajectories extends Module {
     @Override
     public void onWorldRender(RenderEvent event) {
         try {
-            mc.world.loadedEntityList.stream()
-                    .filter(entity -> entity instanceof EntityLivingBase)
-                    .map(entity -> (EntityLivingBase) entity)
-                    .forEach(entity -> {
+            EntityIndex.INSTANCE.ofType(EntityLivingBase.class).forEach(entity -> {
                 positions.clear();
                 TrajectoryCalculator.ThrowingType tt = TrajectoryCalculator.getThrowType(entity);
                 if (tt == TrajectoryCalculator.ThrowingType.NONE) return;
                 TrajectoryCalculator.FlightPath flightPath = new TrajectoryCalculator.FlightPath(entity, tt);
+                if (!flightPath.mayBeVisible()) return; // Before the simulation, which is the expensive part
 
+                double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
                 while (!flightPath.isCollided()) {
                     flightPath.onUpdate();
                     positions.add(flightPath.position);
+                    minX = Math.min(minX, flightPath.position.x);
+                    minY = Math.min(minY, flightPath.position.y);
+                    minZ = Math.min(minZ, flightPath.position.z);
+                    maxX = Math.max(maxX, flightPath.position.x);
+                    maxY = Math.max(maxY, flightPath.position.y);
+                    maxZ = Math.max(maxZ, flightPath.position.z);
                 }
+                double cameraX = mc.getRenderManager().renderPosX, cameraY = mc.getRenderManager().renderPosY, cameraZ = mc.getRenderManager().renderPosZ;
+                // The actual path can still be off screen. The hit box is a block around the last position, so grow by one
+                if (!positions.isEmpty() && !Culling.isVisible(minX - cameraX - 1, minY - cameraY - 1, minZ - cameraZ - 1, maxX - cameraX + 1, maxY - cameraY + 1, maxZ - cameraZ + 1))
+                    return;
 
                 BlockPos hit = null;
                 if (flightPath.getCollidingTarget() != null) hit = flightPath.getCollidingTarget().getBlockPos();
@@ -45,12 +56,8 @@ public class Trajectories extends Module {
                 GL11.glDisable(GL11.GL_TEXTURE_2D);
                 GL11.glDisable(GL11.GL_LIGHTING);
                 GL11.glDisable(GL11.GL_DEPTH_TEST);
-                if (hit != null){
-                    KamiTessellator.prepare(GL11.GL_QUADS);
-                    GL11.glColor4f(1,1,1,.3f);
-                    KamiTessellator.drawBox(hit, 0x33ffffff, GeometryMasks.FACEMAP.get(flightPath.getCollidingTarget().sideHit));
-                    KamiTessellator.release();
-                }
+                if (hit != null)
+                    event.getBatch().box(hit, 0x33ffffff, GeometryMasks.FACEMAP.get(flightPath.getCollidingTarget().sideHit));
 
                 if (positions.isEmpty()) return;
                 GL11.glDisable(GL11.GL_BLEND);
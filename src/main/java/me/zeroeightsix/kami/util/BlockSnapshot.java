@@ -0,0 +1,111 @@
+package me.zeroeightsix.kami.util;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Biomes;
+import net.minecraft.init.Blocks;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldType;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The blocks in a box of the world as they were when it was taken, safe to read from any thread.
+ * <p>
+ * Only what block shapes depend on is copied: the block states, and the tile entities that already existed (none are
+ * created, unlike through {@link World#getTileEntity}). Light and redstone power read as nothing, and every biome as
+ * plains. Outside the box, every block is air.
+ */
+public final class BlockSnapshot implements IBlockAccess {
+
+    private static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final WorldType worldType;
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final IBlockState[] states;
+    private final Map<BlockPos, TileEntity> tileEntities = new HashMap<>();
+
+    /**
+     * Copies the blocks from min to max, inclusive. Main thread only.
+     */
+    public BlockSnapshot(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        minY = Math.max(0, minY);
+        maxY = Math.min(255, maxY);
+        this.worldType = world.getWorldType();
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = Math.max(0, maxX - minX + 1);
+        this.sizeY = Math.max(0, maxY - minY + 1);
+        this.sizeZ = Math.max(0, maxZ - minZ + 1);
+        this.states = new IBlockState[sizeX * sizeY * sizeZ];
+
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        int i = 0;
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    IBlockState state = world.getBlockState(pos.setPos(x, y, z));
+                    states[i++] = state;
+                    if (!state.getBlock().hasTileEntity(state)) continue;
+                    Chunk chunk = world.getChunkProvider().getLoadedChunk(x >> 4, z >> 4);
+                    TileEntity tileEntity = chunk == null ? null : chunk.getTileEntity(pos, Chunk.EnumCreateEntityType.CHECK);
+                    if (tileEntity != null) tileEntities.put(pos.toImmutable(), tileEntity);
+                }
+            }
+        }
+    }
+
+    @Override
+    public TileEntity getTileEntity(BlockPos pos) {
+        return tileEntities.get(pos);
+    }
+
+    @Override
+    public int getCombinedLight(BlockPos pos, int lightValue) {
+        return 0;
+    }
+
+    @Override
+    public IBlockState getBlockState(BlockPos pos) {
+        int x = pos.getX() - minX, y = pos.getY() - minY, z = pos.getZ() - minZ;
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) return AIR;
+        return states[(x * sizeY + y) * sizeZ + z];
+    }
+
+    @Override
+    public boolean isAirBlock(BlockPos pos) {
+        IBlockState state = getBlockState(pos);
+        return state.getBlock().isAir(state, this, pos);
+    }
+
+    @Override
+    public Biome getBiome(BlockPos pos) {
+        return Biomes.PLAINS;
+    }
+
+    @Override
+    public int getStrongPower(BlockPos pos, EnumFacing direction) {
+        return 0;
+    }
+
+    @Override
+    public WorldType getWorldType() {
+        return worldType;
+    }
+
+    @Override
+    public boolean isSideSolid(BlockPos pos, EnumFacing side, boolean _default) {
+        int x = pos.getX() - minX, y = pos.getY() - minY, z = pos.getZ() - minZ;
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) return _default;
+        return getBlockState(pos).isSideSolid(this, pos, side);
+    }
+
+}
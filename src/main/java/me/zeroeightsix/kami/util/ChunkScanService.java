@@ -0,0 +1,302 @@
+package me.zeroeightsix.kami.util;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.client.Minecraft;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.BlockStateContainer;
+import net.minecraft.world.chunk.BlockStatePaletteRegistry;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Looks through the blocks of chunks as they arrive, off the main thread, for every registered {@link Scanner}.
+ * <p>
+ * When a chunk has been read from the network ({@code MixinNetHandlerPlayClient}), its sections are copied into a
+ * {@link Snapshot} (the packed block data and palette, not every block) and handed to a small pool of daemon threads.
+ * Results are collected there and delivered on the main thread by {@link #dispatch()}, at the start of every tick. A
+ * chunk that unloads or arrives again before its scan is done has that scan cancelled, and its results are never
+ * delivered. When the world changes, scans of the old one are cancelled and every scanner starts over.
+ * <p>
+ * The pool size can be set with the {@code kami.chunkScanThreads} system property.
+ */
+public final class ChunkScanService {
+
+    public static final ChunkScanService INSTANCE = new ChunkScanService();
+
+    private static final int THREADS = Math.max(1, Integer.getInteger("kami.chunkScanThreads", 2));
+
+    private final ExecutorService pool;
+    private final List<Scanner<?>> scanners = new ArrayList<>();
+    /**
+     * The latest job of every chunk that has one queued, running or waiting to be delivered
+     */
+    private final Map<Long, Job> jobs = new HashMap<>();
+    private final Queue<Job> done = new ConcurrentLinkedQueue<>();
+    /**
+     * The world results were last delivered for; no unload events are posted when it changes
+     */
+    private World world;
+
+    private ChunkScanService() {
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "KAMI chunk scan #" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        pool = executor;
+    }
+
+    /**
+     * Starts scanning every chunk that arrives, and the chunks already loaded around the player. Main thread only.
+     */
+    public void register(Scanner<?> scanner) {
+        if (scanners.contains(scanner)) return;
+        scanners.add(scanner);
+        Minecraft mc = Minecraft.getMinecraft();
+        if (mc.world == null || mc.player == null) return;
+        int reach = mc.gameSettings.renderDistanceChunks + 1;
+        int centreX = mc.player.chunkCoordX, centreZ = mc.player.chunkCoordZ;
+        List<Scanner<?>> only = new ArrayList<>();
+        only.add(scanner);
+        for (int x = centreX - reach; x <= centreX + reach; x++) {
+            for (int z = centreZ - reach; z <= centreZ + reach; z++) {
+                Chunk chunk = mc.world.getChunkProvider().getLoadedChunk(x, z);
+                if (chunk != null && !jobs.containsKey(ChunkPos.asLong(x, z))) submit(chunk, only);
+            }
+        }
+    }
+
+    /**
+     * Stops delivering results to the scanner, including those of scans already running. Main thread only.
+     */
+    public void unregister(Scanner<?> scanner) {
+        scanners.remove(scanner);
+    }
+
+    /**
+     * Scans a chunk that was just read, replacing any scan of it still going. Main thread only.
+     */
+    public void submit(Chunk chunk) {
+        if (!scanners.isEmpty()) submit(chunk, new ArrayList<>(scanners));
+    }
+
+    private void submit(Chunk chunk, List<Scanner<?>> scanners) {
+        Job job = new Job(new Snapshot(chunk), scanners);
+        Job previous = jobs.put(job.key, job);
+        if (previous != null) previous.cancel();
+        job.future = pool.submit(job);
+    }
+
+    /**
+     * Cancels the chunk's scan and lets every scanner forget about it, e.g. because it unloaded. Main thread only.
+     */
+    public void cancel(int chunkX, int chunkZ) {
+        Job job = jobs.remove(ChunkPos.asLong(chunkX, chunkZ));
+        if (job != null) job.cancel();
+        for (Scanner<?> scanner : scanners) scanner.discard(chunkX, chunkZ);
+    }
+
+    /**
+     * Hands finished scans to their scanners. Called at the start of every client tick.
+     */
+    public void dispatch() {
+        World world = Minecraft.getMinecraft().world;
+        if (world != this.world) {
+            this.world = world;
+            for (Job job : jobs.values()) {
+                if (job.snapshot.world != world) job.cancel();
+            }
+            jobs.values().removeIf(job -> job.cancelled);
+            for (Scanner<?> scanner : scanners) scanner.discardAll();
+        }
+        Job job;
+        while ((job = done.poll()) != null) {
+            if (job.cancelled || jobs.get(job.key) != job) continue; // Unloaded or arrived again since
+            jobs.remove(job.key);
+            if (job.snapshot.world != world) continue;
+            for (int i = 0; i < job.scanners.size(); i++) {
+                if (job.results[i] != Job.FAILED && scanners.contains(job.scanners.get(i)))
+                    job.deliver(i);
+            }
+        }
+    }
+
+    /**
+     * Something to look for in every chunk
+     *
+     * @param <T> what a scan finds
+     */
+    public interface Scanner<T> {
+        /**
+         * Looks through a chunk. Runs on a worker thread, so it must only read the snapshot.
+         */
+        T scan(Snapshot chunk);
+
+        /**
+         * Takes what was found in the given chunk, replacing what was found there before. Main thread.
+         */
+        void accept(int chunkX, int chunkZ, T result);
+
+        /**
+         * Forgets what was found in the given chunk. Main thread.
+         */
+        void discard(int chunkX, int chunkZ);
+
+        /**
+         * Forgets everything found so far, as the world changed. Main thread.
+         */
+        void discardAll();
+    }
+
+    /**
+     * The blocks of a chunk as they were when it was read, safe to read from any thread
+     */
+    public static final class Snapshot {
+        private static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+        private final World world;
+        private final int x, z;
+        /**
+         * Per section: the packed palette indices and bits per block, or null if the section is empty
+         */
+        private final long[][] data = new long[16][];
+        private final int[] bits = new int[16];
+        /**
+         * Per section: the states the indices refer to, or null if they are global ids
+         */
+        private final IBlockState[][] palettes = new IBlockState[16][];
+        private volatile boolean cancelled;
+
+        private Snapshot(Chunk chunk) {
+            world = chunk.getWorld();
+            x = chunk.x;
+            z = chunk.z;
+            ExtendedBlockStorage[] sections = chunk.getBlockStorageArray();
+            for (int i = 0; i < 16; i++) {
+                ExtendedBlockStorage section = sections[i];
+                if (section == Chunk.NULL_BLOCK_STORAGE || section.isEmpty()) continue;
+                BlockStateContainer container = section.getData();
+                data[i] = container.storage.getBackingLongArray().clone();
+                bits[i] = container.bits;
+                if (container.palette instanceof BlockStatePaletteRegistry) continue;
+                IBlockState[] palette = new IBlockState[1 << container.bits];
+                for (int id = 0; id < palette.length; id++) palette[id] = container.palette.getBlockState(id);
+                palettes[i] = palette;
+            }
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getZ() {
+            return z;
+        }
+
+        /**
+         * @return whether the chunk unloaded or arrived again, so scanning it any further is wasted
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isEmpty(int section) {
+            return data[section] == null;
+        }
+
+        /**
+         * @return false if no block in the section can match, going by its palette
+         */
+        public boolean mayContain(int section, Predicate<IBlockState> predicate) {
+            if (data[section] == null) return false;
+            IBlockState[] palette = palettes[section];
+            if (palette == null) return true; // Global ids: no short list of states to check
+            for (IBlockState state : palette)
+                if (state != null && predicate.test(state)) return true;
+            return false;
+        }
+
+        /**
+         * @param x 0 to 15, within the chunk
+         * @param y 0 to 255
+         * @param z 0 to 15, within the chunk
+         */
+        public IBlockState getBlockState(int x, int y, int z) {
+            int section = y >> 4;
+            long[] data = this.data[section];
+            if (data == null) return AIR;
+            int bits = this.bits[section];
+            // Same layout as BitArray#getAt, with BlockStateContainer's y, z, x order
+            int index = (y & 15) << 8 | z << 4 | x;
+            long mask = (1L << bits) - 1;
+            int bit = index * bits;
+            int first = bit >> 6, last = ((index + 1) * bits - 1) >> 6, offset = bit & 63;
+            int id = first == last ? (int) (data[first] >>> offset & mask) : (int) ((data[first] >>> offset | data[last] << (64 - offset)) & mask);
+            IBlockState[] palette = palettes[section];
+            IBlockState state = palette != null ? palette[id] : BlockStateContainer.REGISTRY_BASED_PALETTE.getBlockState(id);
+            return state == null ? AIR : state;
+        }
+    }
+
+    private static final class Job implements Runnable {
+        private static final Object FAILED = new Object();
+
+        private final Snapshot snapshot;
+        private final long key;
+        private final List<Scanner<?>> scanners;
+        private final Object[] results;
+        private volatile boolean cancelled;
+        private Future<?> future;
+
+        private Job(Snapshot snapshot, List<Scanner<?>> scanners) {
+            this.snapshot = snapshot;
+            this.key = ChunkPos.asLong(snapshot.x, snapshot.z);
+            this.scanners = scanners;
+            this.results = new Object[scanners.size()];
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < scanners.size() && !cancelled; i++) {
+                try {
+                    results[i] = scanners.get(i).scan(snapshot);
+                } catch (Exception e) {
+                    results[i] = FAILED;
+                    e.printStackTrace();
+                    System.err.println("Couldn't scan chunk " + snapshot.x + ", " + snapshot.z + "! Err: " + e.getClass().getSimpleName() + ", message: " + e.getMessage());
+                }
+            }
+            if (!cancelled) INSTANCE.done.add(this);
+        }
+
+        private void cancel() {
+            cancelled = true;
+            snapshot.cancelled = true;
+            if (future != null) future.cancel(false);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> void deliver(int i) {
+            ((Scanner<T>) scanners.get(i)).accept(snapshot.x, snapshot.z, (T) results[i]);
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package me.zeroeightsix.kami.util;
+
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.AxisAlignedBB;
+
+/**
+ * The camera's view frustum for the frame being rendered, shared by every module.
+ * <p>
+ * {@link #update()} builds it once per frame, before any module renders. Boxes are given relative to the camera, like
+ * everything else drawn in {@code onWorldRender}:
+ * <pre>
+ * if (!Culling.isVisible(x, y, z, x + 1, y + 1, z + 1)) return;
+ * </pre>
+ * Main thread only.
+ */
+public final class Culling {
+
+    private static Frustum frustum;
+
+    private static long tested;
+    private static long culled;
+
+    private Culling() {
+    }
+
+    /**
+     * Reads the camera's matrices. Called at the start of every world render, while the camera's modelview is current.
+     */
+    public static void update() {
+        frustum = new Frustum();
+        frustum.setPosition(0, 0, 0);
+    }
+
+    /**
+     * @return whether any part of the box, relative to the camera, could be on screen
+     */
+    public static boolean isVisible(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        if (frustum == null) return true;
+        tested++;
+        if (frustum.isBoxInFrustum(minX, minY, minZ, maxX, maxY, maxZ)) return true;
+        culled++;
+        return false;
+    }
+
+    /**
+     * @return whether the entity's interpolated bounding box, grown by the given amount, could be on screen
+     */
+    public static boolean isVisible(Entity entity, double grow) {
+        int slot = FramePositions.slot(entity);
+        AxisAlignedBB box = entity.getEntityBoundingBox();
+        double x = FramePositions.x(slot), y = FramePositions.y(slot), z = FramePositions.z(slot);
+        double halfWidth = (box.maxX - box.minX) / 2 + grow;
+        double halfDepth = (box.maxZ - box.minZ) / 2 + grow;
+        return isVisible(x - halfWidth, y - grow, z - halfDepth, x + halfWidth, y + (box.maxY - box.minY) + grow, z + halfDepth);
+    }
+
+    public static boolean isVisible(Entity entity) {
+        return isVisible(entity, 0);
+    }
+
+    /**
+     * @return the squared distance from the camera to a position relative to it; for picking a level of detail
+     */
+    public static double distanceSq(double x, double y, double z) {
+        return x * x + y * y + z * z;
+    }
+
+    public static long getTested() {
+        return tested;
+    }
+
+    public static long getCulled() {
+        return culled;
+    }
+
+    public static void resetCounters() {
+        tested = 0;
+        culled = 0;
+    }
+
+}
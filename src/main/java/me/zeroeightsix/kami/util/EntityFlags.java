@@ -0,0 +1,116 @@
+package me.zeroeightsix.kami.util;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.entity.player.EntityPlayer;
+
+/**
+ * Per-tick classification of entities, shared by every module.
+ * <p>
+ * The first time an entity is asked about in a tick, all of its flags are worked out at once (through {@link EntityUtil}
+ * and {@link Friends}) and stored by entity id. Everything else asking about it that tick gets a table lookup:
+ * <pre>
+ * if (EntityFlags.is(entity, EntityFlags.PASSIVE)) ...
+ * </pre>
+ * Main thread only.
+ */
+public final class EntityFlags {
+
+    public static final int LIVING = 1;
+    public static final int PLAYER = 1 << 1;
+    public static final int PASSIVE = 1 << 2;
+    public static final int HOSTILE = 1 << 3;
+    public static final int NEUTRAL = 1 << 4;
+    public static final int AGGRESSIVE = 1 << 5;
+    public static final int FRIEND = 1 << 6;
+    public static final int FAKE_LOCAL_PLAYER = 1 << 7;
+    public static final int LOCAL_PLAYER = 1 << 8;
+
+    private static final int COMPUTED = 1 << 31; // So that an entity without any flags is still a hit
+
+    private static final EntityIdMap table = new EntityIdMap();
+
+    private static long lookups;
+    private static long computed;
+
+    private EntityFlags() {
+    }
+
+    /**
+     * Forgets last tick's classifications. Called at the end of every client tick.
+     */
+    public static void nextTick() {
+        table.clear();
+    }
+
+    public static boolean is(Entity entity, int flag) {
+        return (of(entity) & flag) != 0;
+    }
+
+    /**
+     * @return whether the entity is a living entity of a kind the given settings allow: players (other than ourselves),
+     * passive mobs or other mobs
+     */
+    public static boolean isTarget(Entity entity, boolean players, boolean animals, boolean mobs) {
+        int flags = of(entity);
+        if ((flags & LIVING) == 0 || (flags & LOCAL_PLAYER) != 0) return false;
+        if ((flags & PLAYER) != 0) return players;
+        return (flags & PASSIVE) != 0 ? animals : mobs;
+    }
+
+    /**
+     * Like {@link #isTarget}, except that the mobs (or animals) filter also lets players through, and the local player
+     * isn't left out. This is the filter ESP and EyeFinder have always used.
+     *
+     * @return whether the entity is a player and players are allowed, or passes the passive mob or other mob filter
+     */
+    public static boolean isShown(Entity entity, boolean players, boolean animals, boolean mobs) {
+        int flags = of(entity);
+        if (players && (flags & PLAYER) != 0) return true;
+        return (flags & PASSIVE) != 0 ? animals : mobs;
+    }
+
+    /**
+     * @return all flags of the given entity
+     */
+    public static int of(Entity entity) {
+        lookups++;
+        int value = table.get(entity.getEntityId(), 0);
+        if (value == 0) {
+            value = classify(entity);
+            computed++;
+            table.put(entity.getEntityId(), value);
+        }
+        return value;
+    }
+
+    public static long getLookups() {
+        return lookups;
+    }
+
+    public static long getComputed() {
+        return computed;
+    }
+
+    public static void resetCounters() {
+        lookups = 0;
+        computed = 0;
+    }
+
+    private static int classify(Entity entity) {
+        int value = COMPUTED;
+        if (entity instanceof EntityLivingBase) value |= LIVING;
+        if (entity instanceof EntityPlayer) {
+            value |= PLAYER;
+            if (Friends.isFriend(entity)) value |= FRIEND;
+        }
+        if (entity == Wrapper.getPlayer()) value |= LOCAL_PLAYER;
+        if (EntityUtil.isFakeLocalPlayer(entity)) value |= FAKE_LOCAL_PLAYER;
+        if (EntityUtil.isPassive(entity)) value |= PASSIVE;
+        if (EntityUtil.isHostileMob(entity)) value |= HOSTILE;
+        if (EntityUtil.isNeutralMob(entity)) value |= NEUTRAL;
+        if (EntityUtil.isMobAggressive(entity)) value |= AGGRESSIVE;
+        return value;
+    }
+
+}
@@ -0,0 +1,57 @@
+package me.zeroeightsix.kami.util;
+
+/**
+ * Map from entity id to an int, without boxing. Open-addressed; {@link #clear()} is O(1), as a slot only counts as used
+ * if it was written in the current generation.
+ */
+final class EntityIdMap {
+
+    private int[] ids = new int[256];
+    private int[] values = new int[256];
+    private int[] generations = new int[256];
+    private int generation = 1;
+    private int size;
+
+    int get(int id, int absent) {
+        int mask = ids.length - 1;
+        for (int i = mix(id) & mask; generations[i] == generation; i = (i + 1) & mask)
+            if (ids[i] == id) return values[i];
+        return absent;
+    }
+
+    void put(int id, int value) {
+        if ((size + 1) * 2 > ids.length) grow();
+        int mask = ids.length - 1;
+        int i = mix(id) & mask;
+        while (generations[i] == generation && ids[i] != id) i = (i + 1) & mask;
+        if (generations[i] != generation) size++;
+        ids[i] = id;
+        values[i] = value;
+        generations[i] = generation;
+    }
+
+    void clear() {
+        generation++;
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldIds = ids, oldValues = values, oldGenerations = generations;
+        int oldGeneration = generation;
+        ids = new int[oldIds.length * 2];
+        values = new int[oldIds.length * 2];
+        generations = new int[oldIds.length * 2];
+        generation = 1;
+        size = 0;
+        for (int i = 0; i < oldIds.length; i++)
+            if (oldGenerations[i] == oldGeneration) put(oldIds[i], oldValues[i]);
+    }
+
+    /**
+     * Entity ids are mostly sequential; spread them over the table
+     */
+    private static int mix(int id) {
+        return id * 0x9E3779B9 >>> 16 ^ id;
+    }
+
+}
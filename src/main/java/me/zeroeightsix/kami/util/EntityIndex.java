@@ -0,0 +1,273 @@
+package me.zeroeightsix.kami.util;
+
+import net.minecraft.client.multiplayer.WorldClient;
+import net.minecraft.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Spatial index of the client world's entities, so modules don't each have to scan {@code loadedEntityList}.
+ * <p>
+ * Entities are bucketed by chunk column. New entities are added as they join the world; at the end of every client tick
+ * {@link #update(WorldClient)} moves entities that crossed into another chunk and drops the ones that left the world.
+ * Queries compare squared distances, and only visit the chunks the query can reach, plus one more all around: entities
+ * keep moving between updates (e.g. when queried while rendering), so they may be a cell away from the one they're in.
+ * <p>
+ * Main thread only. Lists returned by the queries must not be modified.
+ */
+public final class EntityIndex {
+
+    public static final EntityIndex INSTANCE = new EntityIndex();
+
+    private static final int CELL_SHIFT = 4; // 16 block cells, like chunks
+
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<Entity, Entry> entries = new IdentityHashMap<>();
+    private final List<Entity> all = new ArrayList<>();
+    /**
+     * {@link #ofType(Class)} results, valid until the index changes
+     */
+    private final Map<Class<?>, List<?>> byType = new HashMap<>();
+    private WorldClient world;
+    private int stamp;
+
+    private EntityIndex() {
+    }
+
+    /**
+     * Indexes an entity that just joined the world. Called from {@code EntityJoinWorldEvent}.
+     */
+    public void onEntityJoin(Entity entity) {
+        if (entity.world != world || entries.containsKey(entity)) return;
+        add(entity);
+        all.add(entity);
+        byType.clear();
+    }
+
+    /**
+     * Brings the index up to date with the world's entities. Called at the end of every client tick.
+     */
+    public void update(WorldClient world) {
+        if (world != this.world) {
+            clear();
+            this.world = world;
+        }
+        if (world == null) return;
+
+        int stamp = ++this.stamp;
+        for (Entity entity : world.loadedEntityList) {
+            Entry entry = entries.get(entity);
+            if (entry == null) {
+                entry = add(entity);
+            } else {
+                long key = key(entity.posX, entity.posZ);
+                if (key != entry.cell.key) {
+                    remove(entry);
+                    cell(key).add(entry);
+                }
+            }
+            entry.stamp = stamp;
+        }
+
+        if (entries.size() != world.loadedEntityList.size()) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.stamp == stamp) continue;
+                remove(entry);
+                iterator.remove();
+            }
+        }
+
+        all.clear();
+        all.addAll(world.loadedEntityList);
+        byType.clear();
+    }
+
+    public void clear() {
+        cells.clear();
+        entries.clear();
+        all.clear();
+        byType.clear();
+    }
+
+    /**
+     * @return all entities of the given type, in the world's order
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> List<T> ofType(Class<T> type) {
+        if (type == Entity.class) return (List<T>) Collections.unmodifiableList(all);
+        List<T> list = (List<T>) byType.get(type);
+        if (list == null) {
+            list = new ArrayList<>();
+            for (Entity entity : all)
+                if (type.isInstance(entity)) list.add((T) entity);
+            list = Collections.unmodifiableList(list);
+            byType.put(type, list);
+        }
+        return list;
+    }
+
+    public <T extends Entity> List<T> withinRadius(Entity centre, double radius, Class<T> type, Predicate<? super T> filter) {
+        return withinRadius(centre.posX, centre.posY, centre.posZ, radius, type, filter);
+    }
+
+    /**
+     * @return the entities of the given type within {@code radius} blocks of the given position that pass the filter
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> List<T> withinRadius(double x, double y, double z, double radius, Class<T> type, Predicate<? super T> filter) {
+        List<T> result = new ArrayList<>();
+        double radiusSq = radius * radius;
+        for (Cell cell : cellsAround(x, z, radius)) {
+            for (int i = 0; i < cell.size; i++) {
+                Entity entity = cell.entries[i].entity;
+                if (!type.isInstance(entity) || distanceSq(entity, x, y, z) > radiusSq) continue;
+                if (filter == null || filter.test((T) entity)) result.add((T) entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return up to {@code n} entities of the given type within {@code radius} blocks of {@code centre} that pass the
+     * filter, closest first
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> List<T> nearestN(Entity centre, int n, double radius, Class<T> type, Predicate<? super T> filter) {
+        if (n <= 0) return Collections.emptyList();
+        double x = centre.posX, y = centre.posY, z = centre.posZ;
+        double radiusSq = radius * radius;
+        Entity[] best = new Entity[n];
+        double[] bestDistance = new double[n];
+        int found = 0;
+        for (Cell cell : cellsAround(x, z, radius)) {
+            for (int i = 0; i < cell.size; i++) {
+                Entity entity = cell.entries[i].entity;
+                if (!type.isInstance(entity)) continue;
+                double distance = distanceSq(entity, x, y, z);
+                if (distance > radiusSq || (found == n && distance >= bestDistance[n - 1])) continue;
+                if (filter != null && !filter.test((T) entity)) continue;
+                // Insertion into the sorted best-so-far arrays; n is small
+                int at = found < n ? found++ : n - 1;
+                while (at > 0 && bestDistance[at - 1] > distance) {
+                    best[at] = best[at - 1];
+                    bestDistance[at] = bestDistance[at - 1];
+                    at--;
+                }
+                best[at] = entity;
+                bestDistance[at] = distance;
+            }
+        }
+        List<T> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) result.add((T) best[i]);
+        return result;
+    }
+
+    /**
+     * @return the closest entity of the given type within {@code radius} blocks of {@code centre} that passes the filter, or null
+     */
+    public <T extends Entity> T nearest(Entity centre, double radius, Class<T> type, Predicate<? super T> filter) {
+        List<T> nearest = nearestN(centre, 1, radius, type, filter);
+        return nearest.isEmpty() ? null : nearest.get(0);
+    }
+
+    public static double distanceSq(Entity entity, double x, double y, double z) {
+        double dx = entity.posX - x;
+        double dy = entity.posY - y;
+        double dz = entity.posZ - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private Iterable<Cell> cellsAround(double x, double z, double radius) {
+        // Padded by a cell for entities that crossed a cell edge since the last update
+        int minX = ((int) Math.floor(x - radius) >> CELL_SHIFT) - 1;
+        int maxX = ((int) Math.floor(x + radius) >> CELL_SHIFT) + 1;
+        int minZ = ((int) Math.floor(z - radius) >> CELL_SHIFT) - 1;
+        int maxZ = ((int) Math.floor(z + radius) >> CELL_SHIFT) + 1;
+        // Large queries touch more cells than there are: just go through all of them
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) >= cells.size()) return cells.values();
+
+        List<Cell> around = new ArrayList<>();
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                Cell cell = cells.get(key(cx, cz));
+                if (cell != null) around.add(cell);
+            }
+        }
+        return around;
+    }
+
+    private Entry add(Entity entity) {
+        Entry entry = new Entry(entity);
+        entries.put(entity, entry);
+        cell(key(entity.posX, entity.posZ)).add(entry);
+        return entry;
+    }
+
+    private void remove(Entry entry) {
+        Cell cell = entry.cell;
+        cell.remove(entry);
+        if (cell.size == 0) cells.remove(cell.key);
+    }
+
+    private Cell cell(long key) {
+        return cells.computeIfAbsent(key, Cell::new);
+    }
+
+    private static long key(double x, double z) {
+        return key((int) Math.floor(x) >> CELL_SHIFT, (int) Math.floor(z) >> CELL_SHIFT);
+    }
+
+    private static long key(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    private static class Entry {
+        private final Entity entity;
+        private Cell cell;
+        private int index;
+        private int stamp;
+
+        private Entry(Entity entity) {
+            this.entity = entity;
+        }
+    }
+
+    private static class Cell {
+        private final long key;
+        private Entry[] entries = new Entry[4];
+        private int size;
+
+        private Cell(long key) {
+            this.key = key;
+        }
+
+        private void add(Entry entry) {
+            if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+            entry.cell = this;
+            entry.index = size;
+            entries[size++] = entry;
+        }
+
+        /**
+         * Swaps the last entry into the removed one's place
+         */
+        private void remove(Entry entry) {
+            Entry last = entries[--size];
+            entries[entry.index] = last;
+            last.index = entry.index;
+            entries[size] = null;
+            entry.cell = null;
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package me.zeroeightsix.kami.util;
 
 import net.minecraft.block.BlockLiquid;
+import net.minecraft.client.renderer.entity.RenderManager;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityAgeable;
 import net.minecraft.entity.EntityLivingBase;
@@ -10,7 +11,6 @@ import net.minecraft.entity.monster.EntityIronGolem;
 import net.minecraft.entity.monster.EntityPigZombie;
 import net.minecraft.entity.passive.*;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 
@@ -94,26 +94,31 @@ public class EntityUtil {
      * Find the entities interpolated position
      */
     public static Vec3d getInterpolatedPos(Entity entity, float ticks) {
-        return new Vec3d(entity.lastTickPosX, entity.lastTickPosY, entity.lastTickPosZ).add(getInterpolatedAmount(entity, ticks));
+        return new Vec3d(
+                entity.lastTickPosX + (entity.posX - entity.lastTickPosX) * ticks,
+                entity.lastTickPosY + (entity.posY - entity.lastTickPosY) * ticks,
+                entity.lastTickPosZ + (entity.posZ - entity.lastTickPosZ) * ticks
+        );
     }
 
+    /**
+     * Find the entities interpolated position relative to the camera. Render code should use {@link FramePositions} instead.
+     */
     public static Vec3d getInterpolatedRenderPos(Entity entity, float ticks) {
-        return getInterpolatedPos(entity, ticks).subtract(Wrapper.getMinecraft().getRenderManager().renderPosX,Wrapper.getMinecraft().getRenderManager().renderPosY,Wrapper.getMinecraft().getRenderManager().renderPosZ);
+        RenderManager renderManager = Wrapper.getMinecraft().getRenderManager();
+        return new Vec3d(
+                entity.lastTickPosX + (entity.posX - entity.lastTickPosX) * ticks - renderManager.renderPosX,
+                entity.lastTickPosY + (entity.posY - entity.lastTickPosY) * ticks - renderManager.renderPosY,
+                entity.lastTickPosZ + (entity.posZ - entity.lastTickPosZ) * ticks - renderManager.renderPosZ
+        );
     }
 
     public static boolean isInWater(Entity entity) {
         if(entity == null) return false;
 
-        double y = entity.posY + 0.01;
-
-        for(int x = MathHelper.floor(entity.posX); x < MathHelper.ceil(entity.posX); x++)
-            for (int z = MathHelper.floor(entity.posZ); z < MathHelper.ceil(entity.posZ); z++) {
-                BlockPos pos = new BlockPos(x, (int) y, z);
-
-                if (Wrapper.getWorld().getBlockState(pos).getBlock() instanceof BlockLiquid) return true;
-            }
-
-        return false;
+        int y = (int) (entity.posY + 0.01);
+        return WorldQuery.anyMatch(Wrapper.getWorld(), MathHelper.floor(entity.posX), y, MathHelper.floor(entity.posZ),
+                MathHelper.ceil(entity.posX) - 1, y, MathHelper.ceil(entity.posZ) - 1, state -> state.getBlock() instanceof BlockLiquid);
     }
 
     public static boolean isDrivenByPlayer(Entity entityIn) {
@@ -124,16 +129,9 @@ public class EntityUtil {
     public static boolean isAboveWater(Entity entity, boolean packet){
         if (entity == null) return false;
 
-        double y = entity.posY - (packet ? 0.03 : (EntityUtil.isPlayer(entity) ? 0.2 : 0.5)); // increasing this seems to flag more in NCP but needs to be increased so the player lands on solid water
-
-        for(int x = MathHelper.floor(entity.posX); x < MathHelper.ceil(entity.posX); x++)
-            for (int z = MathHelper.floor(entity.posZ); z < MathHelper.ceil(entity.posZ); z++) {
-                BlockPos pos = new BlockPos(x, MathHelper.floor(y), z);
-
-                if (Wrapper.getWorld().getBlockState(pos).getBlock() instanceof BlockLiquid) return true;
-            }
-
-        return false;
+        int y = MathHelper.floor(entity.posY - (packet ? 0.03 : (EntityUtil.isPlayer(entity) ? 0.2 : 0.5))); // increasing this seems to flag more in NCP but needs to be increased so the player lands on solid water
+        return WorldQuery.anyMatch(Wrapper.getWorld(), MathHelper.floor(entity.posX), y, MathHelper.floor(entity.posZ),
+                MathHelper.ceil(entity.posX) - 1, y, MathHelper.ceil(entity.posZ) - 1, state -> state.getBlock() instanceof BlockLiquid);
     }
 
     public static double[] calculateLookAt(double px, double py, double pz, EntityPlayer me) {
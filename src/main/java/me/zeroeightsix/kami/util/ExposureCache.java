@@ -0,0 +1,300 @@
+package me.zeroeightsix.kami.util;
+
+import it.unimi.dsi.fastutil.longs.Long2FloatOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockStairs;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * How exposed entities are to explosions at given positions ({@link World#getBlockDensity}), worked out at most once per
+ * tick for every pair.
+ * <p>
+ * Every exposure is a few dozen ray traces, so when many pairs are needed at once they can be {@link #prepare prepared}
+ * in parallel, on a small fork-join pool. The workers never touch the world: the blocks the rays can reach are copied
+ * into a {@link BlockSnapshot} first, and traced the way {@link World#rayTraceBlocks(Vec3d, Vec3d)} does. Blocks that
+ * need the world itself to be traced (stairs, and blocks from other mods) can't be traced there; pairs whose rays reach
+ * one are worked out on the main thread afterwards. Only the ray traces run on the pool: everything else about damage
+ * uses shared state and stays on the main thread.
+ * <p>
+ * The pool size can be set with the {@code kami.exposureThreads} system property; 0 prepares on the main thread.
+ */
+public class ExposureCache {
+
+    private static final int THREADS = Integer.getInteger("kami.exposureThreads", Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int SPLIT_THRESHOLD = 8;
+
+    // Results of tracing a single ray through a snapshot
+    private static final int CLEAR = 0;
+    private static final int BLOCKED = 1;
+    private static final int UNKNOWN = 2;
+
+    private static final ForkJoinPool POOL = THREADS <= 0 ? null : new ForkJoinPool(THREADS, pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("KAMI exposure #" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }, null, false);
+
+    private static long lookups;
+    private static long computed;
+
+    /**
+     * Exposure by explosion position (see {@link BlockPos#toLong()}), per entity
+     */
+    private final IdentityHashMap<Entity, Long2FloatOpenHashMap> exposures = new IdentityHashMap<>();
+
+    /**
+     * Forgets all exposures; entities and blocks may have moved since. Call at the start of every tick.
+     */
+    public void clear() {
+        exposures.clear();
+    }
+
+    /**
+     * Works out the exposure of every given entity to explosions at every given position that passes the filter, in
+     * parallel if there are enough of them
+     */
+    public void prepare(World world, List<BlockPos> positions, List<? extends Entity> entities, PairFilter filter) {
+        List<Entity> pairEntities = new ArrayList<>();
+        List<BlockPos> pairPositions = new ArrayList<>();
+        for (Entity entity : entities) {
+            Long2FloatOpenHashMap known = exposures.get(entity);
+            for (BlockPos pos : positions) {
+                if ((known != null && known.containsKey(pos.toLong())) || !filter.test(entity, pos)) continue;
+                pairEntities.add(entity);
+                pairPositions.add(pos);
+            }
+        }
+        int pairs = pairEntities.size();
+        if (pairs == 0) return;
+
+        float[] results = new float[pairs];
+        if (POOL == null || pairs < SPLIT_THRESHOLD * 2) {
+            for (int i = 0; i < pairs; i++) results[i] = compute(world, pairPositions.get(i), pairEntities.get(i));
+        } else {
+            List<AxisAlignedBB> boxes = new ArrayList<>(pairs);
+            for (Entity entity : pairEntities) boxes.add(entity.getEntityBoundingBox());
+            POOL.invoke(new ExposureTask(snapshot(world, pairPositions, boxes), boxes, pairPositions, results, 0, pairs));
+            for (int i = 0; i < pairs; i++) // Rays that reached a block the snapshot can't trace
+                if (Float.isNaN(results[i])) results[i] = compute(world, pairPositions.get(i), pairEntities.get(i));
+        }
+
+        for (int i = 0; i < pairs; i++) store(pairEntities.get(i), pairPositions.get(i), results[i]);
+        computed += pairs;
+    }
+
+    /**
+     * @return how exposed the entity is to an explosion at the centre of the block above {@code pos}, where a crystal
+     * on {@code pos} would be
+     */
+    public float get(World world, BlockPos pos, Entity entity) {
+        lookups++;
+        Long2FloatOpenHashMap known = exposures.get(entity);
+        if (known != null && known.containsKey(pos.toLong())) return known.get(pos.toLong());
+        float exposure = compute(world, pos, entity);
+        store(entity, pos, exposure);
+        computed++;
+        return exposure;
+    }
+
+    private void store(Entity entity, BlockPos pos, float exposure) {
+        exposures.computeIfAbsent(entity, e -> new Long2FloatOpenHashMap()).put(pos.toLong(), exposure);
+    }
+
+    private static float compute(World world, BlockPos pos, Entity entity) {
+        return world.getBlockDensity(new Vec3d(pos.x + .5, pos.y + 1, pos.z + .5), entity.getEntityBoundingBox());
+    }
+
+    /**
+     * Copies every block the rays between the explosions and the boxes can pass through. Neighbours are included too,
+     * as the shape of some blocks depends on them.
+     */
+    private static BlockSnapshot snapshot(World world, List<BlockPos> positions, List<AxisAlignedBB> boxes) {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (BlockPos pos : positions) {
+            minX = Math.min(minX, pos.x);
+            minY = Math.min(minY, pos.y + 1);
+            minZ = Math.min(minZ, pos.z);
+            maxX = Math.max(maxX, pos.x);
+            maxY = Math.max(maxY, pos.y + 1);
+            maxZ = Math.max(maxZ, pos.z);
+        }
+        for (AxisAlignedBB box : boxes) {
+            minX = Math.min(minX, MathHelper.floor(box.minX));
+            minY = Math.min(minY, MathHelper.floor(box.minY));
+            minZ = Math.min(minZ, MathHelper.floor(box.minZ));
+            maxX = Math.max(maxX, MathHelper.floor(box.maxX));
+            maxY = Math.max(maxY, MathHelper.floor(box.maxY));
+            maxZ = Math.max(maxZ, MathHelper.floor(box.maxZ));
+        }
+        return new BlockSnapshot(world, minX - 2, minY - 2, minZ - 2, maxX + 2, maxY + 2, maxZ + 2);
+    }
+
+    /**
+     * {@link World#getBlockDensity}, reading a snapshot instead of the world
+     *
+     * @return the exposure, or NaN if a ray reached a block that can't be traced through the snapshot
+     */
+    private static float compute(BlockSnapshot blocks, Vec3d vec, AxisAlignedBB bb) {
+        double d0 = 1.0D / ((bb.maxX - bb.minX) * 2.0D + 1.0D);
+        double d1 = 1.0D / ((bb.maxY - bb.minY) * 2.0D + 1.0D);
+        double d2 = 1.0D / ((bb.maxZ - bb.minZ) * 2.0D + 1.0D);
+        double d3 = (1.0D - Math.floor(1.0D / d0) * d0) / 2.0D;
+        double d4 = (1.0D - Math.floor(1.0D / d2) * d2) / 2.0D;
+        if (d0 < 0.0D || d1 < 0.0D || d2 < 0.0D) return 0.0F;
+
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        int clear = 0, total = 0;
+        for (float f = 0.0F; f <= 1.0F; f = (float) ((double) f + d0)) {
+            for (float f1 = 0.0F; f1 <= 1.0F; f1 = (float) ((double) f1 + d1)) {
+                for (float f2 = 0.0F; f2 <= 1.0F; f2 = (float) ((double) f2 + d2)) {
+                    double x = bb.minX + (bb.maxX - bb.minX) * (double) f;
+                    double y = bb.minY + (bb.maxY - bb.minY) * (double) f1;
+                    double z = bb.minZ + (bb.maxZ - bb.minZ) * (double) f2;
+                    int result = trace(blocks, pos, x + d3, y, z + d4, vec);
+                    if (result == UNKNOWN) return Float.NaN;
+                    if (result == CLEAR) clear++;
+                    total++;
+                }
+            }
+        }
+        return (float) clear / (float) total;
+    }
+
+    /**
+     * Walks the blocks from the start to {@code end} in the same steps as {@link World#rayTraceBlocks(Vec3d, Vec3d)}
+     */
+    private static int trace(BlockSnapshot blocks, BlockPos.MutableBlockPos pos, double x, double y, double z, Vec3d end) {
+        if (Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(z) || Double.isNaN(end.x) || Double.isNaN(end.y) || Double.isNaN(end.z))
+            return CLEAR;
+        int endX = MathHelper.floor(end.x), endY = MathHelper.floor(end.y), endZ = MathHelper.floor(end.z);
+        int blockX = MathHelper.floor(x), blockY = MathHelper.floor(y), blockZ = MathHelper.floor(z);
+        int result = test(blocks, pos.setPos(blockX, blockY, blockZ), x, y, z, end);
+        if (result != CLEAR) return result;
+
+        for (int steps = 200; steps-- >= 0; ) {
+            if (Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(z)) return CLEAR;
+            if (blockX == endX && blockY == endY && blockZ == endZ) return CLEAR;
+
+            double nextX = 999.0D, nextY = 999.0D, nextZ = 999.0D;
+            if (endX > blockX) nextX = blockX + 1.0D;
+            else if (endX < blockX) nextX = blockX + 0.0D;
+            if (endY > blockY) nextY = blockY + 1.0D;
+            else if (endY < blockY) nextY = blockY + 0.0D;
+            if (endZ > blockZ) nextZ = blockZ + 1.0D;
+            else if (endZ < blockZ) nextZ = blockZ + 0.0D;
+
+            double tX = 999.0D, tY = 999.0D, tZ = 999.0D;
+            double dx = end.x - x, dy = end.y - y, dz = end.z - z;
+            if (endX != blockX) tX = (nextX - x) / dx;
+            if (endY != blockY) tY = (nextY - y) / dy;
+            if (endZ != blockZ) tZ = (nextZ - z) / dz;
+            if (tX == -0.0D) tX = -1.0E-4D;
+            if (tY == -0.0D) tY = -1.0E-4D;
+            if (tZ == -0.0D) tZ = -1.0E-4D;
+
+            EnumFacing facing;
+            if (tX < tY && tX < tZ) {
+                facing = endX > blockX ? EnumFacing.WEST : EnumFacing.EAST;
+                x = nextX;
+                y = y + dy * tX;
+                z = z + dz * tX;
+            } else if (tY < tZ) {
+                facing = endY > blockY ? EnumFacing.DOWN : EnumFacing.UP;
+                x = x + dx * tY;
+                y = nextY;
+                z = z + dz * tY;
+            } else {
+                facing = endZ > blockZ ? EnumFacing.NORTH : EnumFacing.SOUTH;
+                x = x + dx * tZ;
+                y = y + dy * tZ;
+                z = nextZ;
+            }
+
+            blockX = MathHelper.floor(x) - (facing == EnumFacing.EAST ? 1 : 0);
+            blockY = MathHelper.floor(y) - (facing == EnumFacing.UP ? 1 : 0);
+            blockZ = MathHelper.floor(z) - (facing == EnumFacing.SOUTH ? 1 : 0);
+            result = test(blocks, pos.setPos(blockX, blockY, blockZ), x, y, z, end);
+            if (result != CLEAR) return result;
+        }
+        return CLEAR;
+    }
+
+    /**
+     * Like {@code Block#collisionRayTrace}: traces against the block's bounding box
+     */
+    private static int test(BlockSnapshot blocks, BlockPos pos, double x, double y, double z, Vec3d end) {
+        IBlockState state = blocks.getBlockState(pos);
+        Block block = state.getBlock();
+        if (!block.canCollideCheck(state, false)) return CLEAR;
+        // Stairs trace against their parts, and other mods' blocks may do anything: those need the world
+        if (block instanceof BlockStairs || !block.getClass().getName().startsWith("net.minecraft.")) return UNKNOWN;
+        AxisAlignedBB box = state.getBoundingBox(blocks, pos);
+        Vec3d start = new Vec3d(x - pos.getX(), y - pos.getY(), z - pos.getZ());
+        return box.calculateIntercept(start, end.subtract(pos.getX(), pos.getY(), pos.getZ())) != null ? BLOCKED : CLEAR;
+    }
+
+    public static long getLookups() {
+        return lookups;
+    }
+
+    public static long getComputed() {
+        return computed;
+    }
+
+    public static void resetCounters() {
+        lookups = 0;
+        computed = 0;
+    }
+
+    public interface PairFilter {
+        boolean test(Entity entity, BlockPos pos);
+    }
+
+    private static class ExposureTask extends RecursiveAction {
+        private final BlockSnapshot blocks;
+        private final List<AxisAlignedBB> boxes;
+        private final List<BlockPos> positions;
+        private final float[] results;
+        private final int from, to;
+
+        private ExposureTask(BlockSnapshot blocks, List<AxisAlignedBB> boxes, List<BlockPos> positions, float[] results, int from, int to) {
+            this.blocks = blocks;
+            this.boxes = boxes;
+            this.positions = positions;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    BlockPos pos = positions.get(i);
+                    results[i] = ExposureCache.compute(blocks, new Vec3d(pos.x + .5, pos.y + 1, pos.z + .5), boxes.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ExposureTask(blocks, boxes, positions, results, from, middle),
+                    new ExposureTask(blocks, boxes, positions, results, middle, to));
+        }
+    }
+
+}
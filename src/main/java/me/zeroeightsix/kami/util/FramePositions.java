@@ -0,0 +1,122 @@
+package me.zeroeightsix.kami.util;
+
+import net.minecraft.client.entity.EntityPlayerSP;
+import net.minecraft.client.renderer.entity.RenderManager;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.Arrays;
+
+/**
+ * Interpolated positions of all entities for the frame being rendered, relative to the camera (like everything drawn in
+ * {@code onWorldRender}).
+ * <p>
+ * {@link #update(float)} fills the table once per frame, before any module renders. Positions are kept in parallel
+ * arrays indexed by slot, so reading them doesn't allocate:
+ * <pre>
+ * int slot = FramePositions.slot(entity);
+ * drawAt(FramePositions.x(slot), FramePositions.y(slot), FramePositions.z(slot));
+ * </pre>
+ * Slots are only valid for the current frame. Main thread only.
+ */
+public final class FramePositions {
+
+    private static final EntityIdMap slots = new EntityIdMap();
+
+    private static double[] x = new double[256];
+    private static double[] y = new double[256];
+    private static double[] z = new double[256];
+    private static float[] eyeHeight = new float[256];
+    private static int count;
+
+    private static float partialTicks;
+    private static double renderX, renderY, renderZ;
+    private static double crosshairX, crosshairY, crosshairZ;
+
+    private FramePositions() {
+    }
+
+    /**
+     * Interpolates every entity known to the {@link EntityIndex}. Called at the start of every world render.
+     */
+    public static void update(float partialTicks) {
+        RenderManager renderManager = Wrapper.getMinecraft().getRenderManager();
+        FramePositions.partialTicks = partialTicks;
+        renderX = renderManager.renderPosX;
+        renderY = renderManager.renderPosY;
+        renderZ = renderManager.renderPosZ;
+
+        EntityPlayerSP player = Wrapper.getPlayer();
+        Vec3d look = new Vec3d(0, 0, 1)
+                .rotatePitch(-(float) Math.toRadians(player.rotationPitch))
+                .rotateYaw(-(float) Math.toRadians(player.rotationYaw));
+        crosshairX = look.x;
+        crosshairY = look.y + player.getEyeHeight();
+        crosshairZ = look.z;
+
+        slots.clear();
+        count = 0;
+        for (Entity entity : EntityIndex.INSTANCE.ofType(Entity.class)) add(entity);
+    }
+
+    /**
+     * @return the entity's slot in this frame's table. Entities that weren't around at the start of the frame are added.
+     */
+    public static int slot(Entity entity) {
+        int slot = slots.get(entity.getEntityId(), -1);
+        return slot != -1 ? slot : add(entity);
+    }
+
+    /**
+     * @return the interpolated x position of the entity in the given slot, minus the camera's
+     */
+    public static double x(int slot) {
+        return x[slot];
+    }
+
+    public static double y(int slot) {
+        return y[slot];
+    }
+
+    public static double z(int slot) {
+        return z[slot];
+    }
+
+    public static float eyeHeight(int slot) {
+        return eyeHeight[slot];
+    }
+
+    /**
+     * @return the x position of the point one block in front of the player's eyes, relative to the camera (tracers start
+     * here)
+     */
+    public static double crosshairX() {
+        return crosshairX;
+    }
+
+    public static double crosshairY() {
+        return crosshairY;
+    }
+
+    public static double crosshairZ() {
+        return crosshairZ;
+    }
+
+    private static int add(Entity entity) {
+        if (count == x.length) {
+            int capacity = count * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            z = Arrays.copyOf(z, capacity);
+            eyeHeight = Arrays.copyOf(eyeHeight, capacity);
+        }
+        int slot = count++;
+        x[slot] = entity.lastTickPosX + (entity.posX - entity.lastTickPosX) * partialTicks - renderX;
+        y[slot] = entity.lastTickPosY + (entity.posY - entity.lastTickPosY) * partialTicks - renderY;
+        z[slot] = entity.lastTickPosZ + (entity.posZ - entity.lastTickPosZ) * partialTicks - renderZ;
+        eyeHeight[slot] = entity.getEyeHeight();
+        slots.put(entity.getEntityId(), slot);
+        return slot;
+    }
+
+}
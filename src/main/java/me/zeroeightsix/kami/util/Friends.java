@@ -1,41 +1,142 @@
 package me.zeroeightsix.kami.util;
 
 import com.google.common.base.Converter;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
-import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonObject;
+import com.mojang.authlib.GameProfile;
 import me.zeroeightsix.kami.setting.Setting;
 import me.zeroeightsix.kami.setting.Settings;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLConnection;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
 /**
  * Created by 086 on 13/12/2017.
+ * <p>
+ * Lookups go through a set of lowercase names and a map of UUIDs, rebuilt whenever the list changes. Change the list
+ * through {@link #addFriend(Friend)} and {@link #removeFriend(Friend)} so they stay in sync.
  */
 public class Friends {
     public static final Friends INSTANCE = new Friends();
 
     public static Setting<ArrayList<Friend>> friends;
 
+    // Replaced, never modified, so they can be read from any thread without locking
+    private static volatile Set<String> names = Collections.emptySet();
+    private static volatile Map<UUID, Friend> uuids = Collections.emptyMap();
+    /**
+     * Names of the friends we have no UUID of, who can only be matched by name
+     */
+    private static volatile Set<String> namesWithoutUuid = Collections.emptySet();
+
     private Friends() {
     }
 
     public static void initFriends() {
-        friends = Settings.custom("Friends", new ArrayList<Friend>(), new FriendListConverter()).buildAndRegister("friends");
+        friends = Settings.custom("Friends", new ArrayList<Friend>(), new FriendListConverter(), input -> true, (old, now) -> reindex(), false).buildAndRegister("friends");
+    }
+
+    /**
+     * Looks up the current username of every friend. Friends are stored with their UUID, so this keeps the list
+     * correct when friends change their name. Returns immediately: the saved names are used until the lookups (see
+     * {@link ProfileResolver}) come back.
+     */
+    public static void refreshNames() {
+        List<Friend> friends = getFriends();
+        List<UUID> uuids = new ArrayList<>();
+        for (Friend friend : friends)
+            if (friend.uuid != null) uuids.add(friend.uuid);
+        ProfileResolver.namesOf(uuids).thenAccept(names -> {
+            boolean renamed = false;
+            for (Friend friend : friends) {
+                if (friend.uuid == null) continue;
+                String name = names.get(friend.uuid);
+                if (name == null || name.equals(friend.username)) continue;
+                friend.username = name;
+                renamed = true;
+            }
+            if (renamed) reindex();
+        });
     }
 
     public static boolean isFriend(String name) {
-        return friends.getValue().stream().anyMatch(friend -> friend.username.equalsIgnoreCase(name));
+        return name != null && names.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Matches by UUID, so friends who changed their name still count and whoever took their old name doesn't. Falls back
+     * to the name for profiles without a real UUID (offline mode ones are name based, version 3), and for friends we
+     * have no UUID of.
+     */
+    public static boolean isFriend(GameProfile profile) {
+        UUID id = profile.getId();
+        if (id != null && uuids.containsKey(id)) return true;
+        String name = profile.getName();
+        if (name == null) return false;
+        if (id == null || id.version() == 3) return isFriend(name);
+        return namesWithoutUuid.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    public static boolean isFriend(Entity entity) {
+        if (entity instanceof EntityPlayer) return isFriend(((EntityPlayer) entity).getGameProfile());
+        return isFriend(entity.getName());
+    }
+
+    /**
+     * @return the friend with the given name, ignoring case, or null
+     */
+    public static Friend getFriend(String name) {
+        if (!isFriend(name)) return null;
+        for (Friend friend : getFriends())
+            if (friend.username.equalsIgnoreCase(name)) return friend;
+        return null;
+    }
+
+    /**
+     * @return a snapshot of the friend list
+     */
+    public static synchronized List<Friend> getFriends() {
+        return new ArrayList<>(friends.getValue());
+    }
+
+    public static synchronized void addFriend(Friend friend) {
+        friends.getValue().add(friend);
+        reindex();
+    }
+
+    public static synchronized void removeFriend(Friend friend) {
+        friends.getValue().remove(friend);
+        reindex();
+    }
+
+    private static synchronized void reindex() {
+        Set<String> names = new HashSet<>();
+        Map<UUID, Friend> uuids = new HashMap<>();
+        Set<String> namesWithoutUuid = new HashSet<>();
+        for (Friend friend : friends.getValue()) {
+            String name = friend.username.toLowerCase(Locale.ROOT);
+            names.add(name);
+            if (friend.uuid != null) uuids.put(friend.uuid, friend);
+            else namesWithoutUuid.add(name);
+        }
+        Friends.names = names;
+        Friends.uuids = uuids;
+        Friends.namesWithoutUuid = namesWithoutUuid;
     }
 
     public static class Friend {
-        String username;
+        volatile String username; // Refreshed from a background thread
         UUID uuid;
 
         public Friend(String username, UUID uuid) {
@@ -48,19 +149,41 @@ public class Friends {
         }
     }
 
+    /**
+     * Stores friends as an array of {@code {"name": ..., "uuid": ...}} objects, leaving out the UUID of friends we don't
+     * know it of. Also reads the old {@code name;uuid$} string format, which is replaced the next time the configuration
+     * is saved.
+     */
     public static class FriendListConverter extends Converter<ArrayList<Friend>, JsonElement> {
         public FriendListConverter() {}
 
         @Override
         protected JsonElement doForward(ArrayList<Friend> list) {
-            StringBuilder present = new StringBuilder();
-            for (Friend friend : list)
-                present.append(String.format("%s;%s$", friend.username, friend.uuid.toString()));
-            return new JsonPrimitive(present.toString());
+            JsonArray array = new JsonArray();
+            for (Friend friend : list) {
+                JsonObject object = new JsonObject();
+                object.addProperty("name", friend.username);
+                if (friend.uuid != null) object.addProperty("uuid", friend.uuid.toString());
+                array.add(object);
+            }
+            return array;
         }
 
         @Override
         protected ArrayList<Friend> doBackward(JsonElement jsonElement) {
+            if (jsonElement.isJsonArray()) {
+                JsonArray array = jsonElement.getAsJsonArray();
+                ArrayList<Friend> friends = new ArrayList<>(array.size());
+                for (JsonElement element : array) {
+                    try {
+                        JsonObject object = element.getAsJsonObject();
+                        JsonElement uuid = object.get("uuid");
+                        friends.add(new Friend(object.get("name").getAsString(), uuid == null || uuid.isJsonNull() ? null : UUID.fromString(uuid.getAsString())));
+                    } catch (Exception ignored) {} // Wrong formatting, we don't care
+                }
+                return friends;
+            }
+
             String v = jsonElement.getAsString();
             String[] pairs = v.split(Pattern.quote("$"));
             ArrayList<Friend> friends = new ArrayList<>();
@@ -69,41 +192,11 @@ public class Friends {
                     String[] split = pair.split(";");
                     String username = split[0];
                     UUID uuid = UUID.fromString(split[1]);
-                    friends.add(new Friend(getUsernameByUUID(uuid, username),uuid));
+                    friends.add(new Friend(username, uuid)); // Names are refreshed afterwards, see Friends#refreshNames
                 } catch (Exception ignored) {} // Empty line, wrong formatting or something, we don't care
             }
             return friends;
         }
-
-        private String getUsernameByUUID(UUID uuid, String saved) {
-            String src = getSource("https://sessionserver.mojang.com/session/minecraft/profile/" + uuid.toString());
-            if (src == null || src.isEmpty()) return saved;
-            try {
-                JsonElement object = new JsonParser().parse(src);
-                return object.getAsJsonObject().get("name").getAsString();
-            }catch (Exception e) {
-                e.printStackTrace();
-                System.err.println(src);
-                return saved;
-            }
-        }
-
-        private static String getSource(String link){
-            try{
-                URL u = new URL(link);
-                URLConnection con = u.openConnection();
-                BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-                StringBuilder buffer = new StringBuilder();
-                String inputLine;
-                while ((inputLine = in.readLine()) != null)
-                    buffer.append(inputLine);
-                in.close();
-
-                return buffer.toString();
-            }catch(Exception e){
-                return null;
-            }
-        }
     }
 
 }
@@ -0,0 +1,235 @@
+package me.zeroeightsix.kami.util;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.OpenGlHelper;
+import net.minecraft.client.renderer.WorldVertexBufferUploader;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexBuffer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Retained geometry for things that only change when chunks or tile entities do, bucketed by chunk.
+ * <p>
+ * The geometry of a chunk is built by the {@link Compiler} once, uploaded into one vertex buffer per layer (see
+ * {@link RenderBatch.Layer}) and drawn from there every frame until the chunk is {@link #invalidate invalidated}. On
+ * drivers without VBO support the compiled vertices are kept and re-sent every frame instead, which still saves
+ * rebuilding them.
+ * <p>
+ * Chunks outside the {@link Culling} frustum are skipped. Past the {@link #setLodDistance LOD distance}, chunks are
+ * compiled again with {@code far} set, so the compiler can build something cheaper.
+ * <p>
+ * Main thread only.
+ */
+public class GeometryCache {
+
+    private static final BufferBuilder builder = new BufferBuilder(0x4000);
+    private static final WorldVertexBufferUploader uploader = new WorldVertexBufferUploader();
+
+    private final Compiler compiler;
+    private final Map<Long, Region> regions = new HashMap<>();
+    private final Set<Long> dirty = new HashSet<>();
+    private World world;
+    private double lodDistanceSq;
+
+    public GeometryCache(Compiler compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Rebuilds the given chunk's geometry before the next draw
+     */
+    public void invalidate(int chunkX, int chunkZ) {
+        dirty.add(ChunkPos.asLong(chunkX, chunkZ));
+    }
+
+    public void invalidate(BlockPos pos) {
+        invalidate(pos.x >> 4, pos.z >> 4);
+    }
+
+    /**
+     * Drops the given chunk's geometry, e.g. because it unloaded
+     */
+    public void remove(int chunkX, int chunkZ) {
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        dirty.remove(key);
+        Region region = regions.remove(key);
+        if (region != null) region.delete();
+    }
+
+    /**
+     * Drops all geometry and frees the buffers
+     */
+    public void clear() {
+        for (Region region : regions.values()) region.delete();
+        regions.clear();
+        dirty.clear();
+    }
+
+    /**
+     * @param distance how far (horizontally) from the camera a chunk has to be to get compiled as far away, or 0 to never
+     */
+    public void setLodDistance(double distance) {
+        lodDistanceSq = distance * distance;
+    }
+
+    public int getRegionCount() {
+        return regions.size();
+    }
+
+    /**
+     * Compiles whatever was invalidated, then draws every chunk, positioned relative to the given camera position.
+     * Expects the world render's camera-relative modelview.
+     */
+    public void draw(double cameraX, double cameraY, double cameraZ) {
+        World world = Wrapper.getWorld();
+        if (world != this.world) {
+            // Different world or dimension: none of the chunks are around anymore, but the new ones may already be dirty
+            for (Region region : regions.values()) region.delete();
+            regions.clear();
+            this.world = world;
+        }
+        if (world == null) return;
+        compile(world, cameraX, cameraZ);
+        if (regions.isEmpty()) return;
+
+        boolean vbo = OpenGlHelper.useVbo();
+        KamiTessellator.prepareGL();
+        if (vbo) {
+            GlStateManager.glEnableClientState(GL_VERTEX_ARRAY);
+            GlStateManager.glEnableClientState(GL_COLOR_ARRAY);
+        }
+        for (Map.Entry<Long, Region> entry : regions.entrySet()) {
+            Region region = entry.getValue();
+            double x = region.x - cameraX, y = -cameraY, z = region.z - cameraZ;
+            if (isFar(x, z) != region.far) dirty.add(entry.getKey()); // Crossed the LOD distance, rebuild next frame
+            if (!Culling.isVisible(x, y + region.minY, z, x + 16, y + region.maxY, z + 16)) continue;
+            GlStateManager.pushMatrix();
+            GlStateManager.translate(x, y, z);
+            region.draw(vbo);
+            GlStateManager.popMatrix();
+        }
+        if (vbo) {
+            OpenGlHelper.glBindBuffer(OpenGlHelper.GL_ARRAY_BUFFER, 0);
+            GlStateManager.glDisableClientState(GL_VERTEX_ARRAY);
+            GlStateManager.glDisableClientState(GL_COLOR_ARRAY);
+        }
+        KamiTessellator.releaseGL();
+    }
+
+    private boolean isFar(double x, double z) {
+        return lodDistanceSq > 0 && Culling.distanceSq(x + 8, 0, z + 8) > lodDistanceSq;
+    }
+
+    private void compile(World world, double cameraX, double cameraZ) {
+        if (dirty.isEmpty()) return;
+        for (Iterator<Long> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            long key = iterator.next();
+            iterator.remove();
+            int chunkX = (int) key, chunkZ = (int) (key >> 32); // See ChunkPos#asLong
+            Chunk chunk = world.getChunkProvider().getLoadedChunk(chunkX, chunkZ);
+            Region region = regions.get(key);
+            if (chunk == null) {
+                if (region != null) regions.remove(key).delete();
+                continue;
+            }
+            if (region == null) regions.put(key, region = new Region(chunkX << 4, chunkZ << 4));
+            region.batch.begin(region.x, 0, region.z);
+            region.far = isFar(region.x - cameraX, region.z - cameraZ);
+            compiler.compile(chunk, region.batch, region.far);
+            if (region.batch.isEmpty()) regions.remove(key).delete();
+            else region.upload();
+        }
+    }
+
+    /**
+     * Builds the geometry of one chunk, in world coordinates
+     */
+    public interface Compiler {
+        void compile(Chunk chunk, RenderBatch batch, boolean far);
+    }
+
+    private static class Region {
+        private final int x, z;
+        private final RenderBatch batch = new RenderBatch();
+        private VertexBuffer[] buffers = new VertexBuffer[0];
+        private boolean far;
+        private float minY, maxY;
+
+        private Region(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+
+        private void upload() {
+            delete();
+            List<RenderBatch.Layer> layers = batch.getLayers();
+            minY = Float.POSITIVE_INFINITY;
+            maxY = Float.NEGATIVE_INFINITY;
+            for (RenderBatch.Layer layer : layers) {
+                for (int i = 0; i < layer.getVertexCount(); i++) {
+                    minY = Math.min(minY, layer.getY(i));
+                    maxY = Math.max(maxY, layer.getY(i));
+                }
+            }
+            if (!OpenGlHelper.useVbo()) return; // Draw straight from the batch instead
+            buffers = new VertexBuffer[layers.size()];
+            for (int i = 0; i < layers.size(); i++) {
+                if (layers.get(i).getVertexCount() == 0) continue;
+                fill(layers.get(i));
+                builder.finishDrawing();
+                buffers[i] = new VertexBuffer(DefaultVertexFormats.POSITION_COLOR);
+                buffers[i].bufferData(builder.getByteBuffer());
+                builder.reset();
+            }
+        }
+
+        private void draw(boolean vbo) {
+            List<RenderBatch.Layer> layers = batch.getLayers();
+            for (int i = 0; i < layers.size(); i++) {
+                RenderBatch.Layer layer = layers.get(i);
+                if (layer.getVertexCount() == 0) continue;
+                if (layer.isDepthTested()) GlStateManager.enableDepth();
+                else GlStateManager.disableDepth();
+                GlStateManager.glLineWidth(layer.getLineWidth());
+                if (vbo && i < buffers.length) {
+                    buffers[i].bindBuffer();
+                    GlStateManager.glVertexPointer(3, GL_FLOAT, 16, 0);
+                    GlStateManager.glColorPointer(4, GL_UNSIGNED_BYTE, 16, 12);
+                    buffers[i].drawArrays(layer.getPrimitive().getGlMode());
+                } else {
+                    fill(layer);
+                    builder.finishDrawing();
+                    uploader.draw(builder);
+                }
+            }
+        }
+
+        private void fill(RenderBatch.Layer layer) {
+            builder.begin(layer.getPrimitive().getGlMode(), DefaultVertexFormats.POSITION_COLOR);
+            for (int i = 0; i < layer.getVertexCount(); i++) {
+                int argb = layer.getColour(i);
+                builder.pos(layer.getX(i), layer.getY(i), layer.getZ(i)).color((argb >>> 16) & 0xFF, (argb >>> 8) & 0xFF, argb & 0xFF, (argb >>> 24) & 0xFF).endVertex();
+            }
+        }
+
+        private void delete() {
+            for (VertexBuffer buffer : buffers)
+                if (buffer != null) buffer.deleteGlBuffers();
+            buffers = new VertexBuffer[0];
+        }
+    }
+
+}
@@ -60,6 +60,43 @@ public class KamiTessellator extends Tessellator {
         GlStateManager.enableDepth();
     }
 
+    /**
+     * Draws everything modules added to the frame's {@link RenderBatch}, with one draw call per layer
+     */
+    public static void flush(RenderBatch batch) {
+        if (batch.isEmpty()) return;
+        prepareGL();
+        INSTANCE.getBuffer().setTranslation(0, 0, 0); // Batched positions are already relative to the camera
+        batch.flush(KamiTessellator::drawBatch);
+        releaseGL();
+    }
+
+    /**
+     * Like {@link #flush(RenderBatch)}, but with the camera oriented without view bobbing
+     */
+    public static void flushUnbobbed(RenderBatch batch, float partialTicks) {
+        if (batch.isEmpty()) return;
+        GlStateManager.pushMatrix();
+        glLoadIdentity();
+        Wrapper.getMinecraft().entityRenderer.orientCamera(partialTicks);
+        flush(batch);
+        GlStateManager.popMatrix();
+    }
+
+    public static void drawBatch(RenderBatch.Layer layer) {
+        if (layer.isDepthTested()) GlStateManager.enableDepth();
+        else GlStateManager.disableDepth();
+        GlStateManager.glLineWidth(layer.getLineWidth());
+
+        BufferBuilder buffer = INSTANCE.getBuffer();
+        buffer.begin(layer.getPrimitive().getGlMode(), DefaultVertexFormats.POSITION_COLOR);
+        for (int i = 0; i < layer.getVertexCount(); i++) {
+            int argb = layer.getColour(i);
+            buffer.pos(layer.getX(i), layer.getY(i), layer.getZ(i)).color((argb >>> 16) & 0xFF, (argb >>> 8) & 0xFF, argb & 0xFF, (argb >>> 24) & 0xFF).endVertex();
+        }
+        INSTANCE.draw();
+    }
+
     public static void drawBox(BlockPos blockPos, int argb, int sides) {
         final int a = (argb >>> 24) & 0xFF;
         final int r = (argb >>> 16) & 0xFF;
@@ -1,8 +1,9 @@
 package me.zeroeightsix.kami.util;
 
-import me.zero.alpine.listener.EventHandler;
 import me.zero.alpine.listener.Listener;
 import me.zeroeightsix.kami.KamiMod;
+import me.zeroeightsix.kami.event.PacketHandler;
+import me.zeroeightsix.kami.event.ThreadMode;
 import me.zeroeightsix.kami.event.events.PacketEvent;
 import net.minecraft.network.play.server.SPacketTimeUpdate;
 import net.minecraft.util.math.MathHelper;
@@ -18,12 +19,8 @@ public class LagCompensator implements EventListener {
     private int nextIndex = 0;
     private long timeLastTimeUpdate;
 
-    @EventHandler
-    Listener<PacketEvent.Receive> packetEventListener = new Listener<>(event -> {
-        if (event.getPacket() instanceof SPacketTimeUpdate){
-            INSTANCE.onTimeUpdate();
-        }
-    });
+    @PacketHandler(value = SPacketTimeUpdate.class, thread = ThreadMode.MAIN)
+    Listener<PacketEvent.Receive> packetEventListener = new Listener<>(event -> INSTANCE.onTimeUpdate(event.getTime()));
 
     public LagCompensator() {
         KamiMod.EVENT_BUS.subscribe(this);
@@ -51,14 +48,17 @@ public class LagCompensator implements EventListener {
         return MathHelper.clamp(sumTickRates / numTicks, 0.0F, 20.0F);
     }
 
-    public void onTimeUpdate()
+    /**
+     * @param time when the time update was received, as it's handed to us on the main thread a little later
+     */
+    public void onTimeUpdate(long time)
     {
         if (this.timeLastTimeUpdate != -1L)
         {
-            float timeElapsed = (float)(System.currentTimeMillis() - this.timeLastTimeUpdate) / 1000.0F;
+            float timeElapsed = (float)(time - this.timeLastTimeUpdate) / 1000.0F;
             this.tickRates[(this.nextIndex % this.tickRates.length)] = MathHelper.clamp(20.0F / timeElapsed, 0.0F, 20.0F);
             this.nextIndex += 1;
         }
-        this.timeLastTimeUpdate = System.currentTimeMillis();
+        this.timeLastTimeUpdate = time;
     }
 }
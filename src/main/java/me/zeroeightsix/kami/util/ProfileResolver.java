@@ -0,0 +1,267 @@
+package me.zeroeightsix.kami.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.mojang.authlib.GameProfile;
+import com.mojang.util.UUIDTypeAdapter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Looks up Minecraft profiles (UUID to name and name to UUID) without blocking the caller.
+ * <p>
+ * Lookups run on a small pool of daemon threads, in parallel. Results are kept in {@code KAMIProfileCache.json} for a
+ * day, so restarting doesn't hit the API again. Name to UUID lookups are batched, as many names per request as the API
+ * allows.
+ * <p>
+ * The endpoints can be changed with the {@code kami.sessionServer} and {@code kami.profilesApi} system properties, e.g.
+ * to point them at a local server.
+ */
+public final class ProfileResolver {
+
+    private static final String SESSION_SERVER = System.getProperty("kami.sessionServer", "https://sessionserver.mojang.com/session/minecraft/profile/");
+    private static final String PROFILES_API = System.getProperty("kami.profilesApi", "https://api.mojang.com/profiles/minecraft");
+    private static final long TTL = TimeUnit.HOURS.toMillis(Long.getLong("kami.profileCacheHours", 24));
+    private static final int BATCH_SIZE = 10; // The most names the profiles API takes per request
+    private static final int TIMEOUT = 5000;
+    private static final Path CACHE_FILE = Paths.get("KAMIProfileCache.json");
+
+    private static final ExecutorService POOL;
+
+    static {
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "KAMI profile lookup #" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        POOL = executor;
+    }
+
+    /**
+     * UUID to name and time of lookup. Loaded on first use.
+     */
+    private static volatile Map<UUID, CacheEntry> cache;
+
+    private ProfileResolver() {
+    }
+
+    /**
+     * @return the current name of the player with the given UUID, or null if it couldn't be looked up
+     */
+    public static CompletableFuture<String> nameOf(UUID uuid) {
+        AtomicBoolean changed = new AtomicBoolean();
+        return fetchName(uuid, changed).thenApply(name -> {
+            if (changed.get()) save();
+            return name;
+        });
+    }
+
+    /**
+     * @return the current names of the given players, by UUID. Players whose name couldn't be looked up are left out.
+     * The cache is saved once, after every lookup is done.
+     */
+    public static CompletableFuture<Map<UUID, String>> namesOf(Collection<UUID> uuids) {
+        Map<UUID, String> found = new ConcurrentHashMap<>();
+        AtomicBoolean changed = new AtomicBoolean();
+        List<CompletableFuture<Void>> lookups = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            lookups.add(fetchName(uuid, changed).thenAccept(name -> {
+                if (name != null) found.put(uuid, name);
+            }));
+        }
+        return CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).thenApply(v -> {
+            if (changed.get()) save();
+            return found;
+        });
+    }
+
+    /**
+     * Looks the name up without saving the cache; sets {@code changed} if the cache needs saving
+     */
+    private static CompletableFuture<String> fetchName(UUID uuid, AtomicBoolean changed) {
+        CacheEntry cached = cache().get(uuid);
+        if (cached != null && cached.isFresh()) return CompletableFuture.completedFuture(cached.name);
+        return CompletableFuture.supplyAsync(() -> {
+            String name = requestName(uuid);
+            if (name == null) return cached != null ? cached.name : null; // Offline: an old name is better than none
+            put(uuid, name);
+            changed.set(true);
+            return name;
+        }, POOL);
+    }
+
+    /**
+     * @return the profiles of the given players, by lowercase name. Players that don't exist are left out.
+     */
+    public static CompletableFuture<Map<String, GameProfile>> lookup(Collection<String> names) {
+        Map<String, GameProfile> found = new ConcurrentHashMap<>();
+        List<String> missing = new ArrayList<>();
+        Map<UUID, CacheEntry> cache = cache();
+        for (String name : names) {
+            GameProfile profile = cachedProfile(cache, name);
+            if (profile != null) found.put(name.toLowerCase(Locale.ROOT), profile);
+            else missing.add(name);
+        }
+        if (missing.isEmpty()) return CompletableFuture.completedFuture(found);
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i += BATCH_SIZE) {
+            List<String> batch = missing.subList(i, Math.min(i + BATCH_SIZE, missing.size()));
+            batches.add(CompletableFuture.runAsync(() -> {
+                for (GameProfile profile : requestProfiles(batch)) {
+                    found.put(profile.getName().toLowerCase(Locale.ROOT), profile);
+                    put(profile.getId(), profile.getName());
+                }
+            }, POOL));
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).thenApply(v -> {
+            save();
+            return found;
+        });
+    }
+
+    private static GameProfile cachedProfile(Map<UUID, CacheEntry> cache, String name) {
+        for (Map.Entry<UUID, CacheEntry> entry : cache.entrySet())
+            if (entry.getValue().isFresh() && entry.getValue().name.equalsIgnoreCase(name))
+                return new GameProfile(entry.getKey(), entry.getValue().name);
+        return null;
+    }
+
+    private static String requestName(UUID uuid) {
+        try {
+            HttpURLConnection connection = open(SESSION_SERVER + UUIDTypeAdapter.fromUUID(uuid));
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) return null;
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                return new JsonParser().parse(reader).getAsJsonObject().get("name").getAsString();
+            } finally {
+                connection.disconnect();
+            }
+        } catch (Exception e) {
+            System.err.println("Couldn't look up the name of " + uuid + "! Err: " + e.getClass().getSimpleName() + ", message: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static List<GameProfile> requestProfiles(List<String> names) {
+        List<GameProfile> profiles = new ArrayList<>();
+        try {
+            JsonArray body = new JsonArray();
+            for (String name : names) body.add(name);
+            HttpURLConnection connection = open(PROFILES_API);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) return profiles;
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray()) {
+                    JsonObject object = element.getAsJsonObject();
+                    profiles.add(new GameProfile(UUIDTypeAdapter.fromString(object.get("id").getAsString()), object.get("name").getAsString()));
+                }
+            } finally {
+                connection.disconnect();
+            }
+        } catch (Exception e) {
+            System.err.println("Couldn't look up the UUIDs of " + names + "! Err: " + e.getClass().getSimpleName() + ", message: " + e.getMessage());
+        }
+        return profiles;
+    }
+
+    private static HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        return connection;
+    }
+
+    private static void put(UUID uuid, String name) {
+        cache().put(uuid, new CacheEntry(name, System.currentTimeMillis()));
+    }
+
+    private static Map<UUID, CacheEntry> cache() {
+        Map<UUID, CacheEntry> cache = ProfileResolver.cache;
+        if (cache != null) return cache;
+        synchronized (ProfileResolver.class) {
+            if (ProfileResolver.cache == null) ProfileResolver.cache = load();
+            return ProfileResolver.cache;
+        }
+    }
+
+    private static Map<UUID, CacheEntry> load() {
+        Map<UUID, CacheEntry> cache = new ConcurrentHashMap<>();
+        if (!Files.exists(CACHE_FILE)) return cache;
+        try (BufferedReader reader = Files.newBufferedReader(CACHE_FILE)) {
+            Map<UUID, CacheEntry> saved = new Gson().fromJson(reader, new TypeToken<HashMap<UUID, CacheEntry>>() {}.getType());
+            if (saved != null) saved.forEach((uuid, entry) -> {
+                if (uuid != null && entry != null && entry.name != null) cache.put(uuid, entry);
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println("Couldn't read the profile cache! Err: " + e.getClass().getSimpleName() + ", message: " + e.getMessage());
+        }
+        return cache;
+    }
+
+    private static synchronized void save() {
+        try {
+            Path temp = CACHE_FILE.resolveSibling(CACHE_FILE.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                new Gson().toJson(new HashMap<>(cache()), writer);
+            }
+            Files.move(temp, CACHE_FILE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Couldn't save the profile cache! Err: " + e.getClass().getSimpleName() + ", message: " + e.getMessage());
+        }
+    }
+
+    private static class CacheEntry {
+        private String name;
+        private long time;
+
+        private CacheEntry(String name, long time) {
+            this.name = name;
+            this.time = time;
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() - time < TTL;
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+package me.zeroeightsix.kami.util;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Block ray traces shared by every module, with the same results as {@link World#rayTraceBlocks(Vec3d, Vec3d, boolean, boolean, boolean)}.
+ * <p>
+ * Blocks along the ray are visited one by one (a DDA walk) with a single mutable position, so the walk only allocates
+ * for blocks the ray could actually hit. Results are kept until the world ticks or a block changes
+ * ({@link #onBlocksChanged}), keyed by the ray's endpoints rounded to {@value #PRECISION}ths of a block: modules asking
+ * whether the same thing is visible in the same tick share one trace. Lookups go through a single reusable key, so only
+ * traces that are actually stored allocate one. Several rays can be traced in one call with {@link #traceAll}.
+ * <p>
+ * Results are shared and must not be modified. Main thread only.
+ */
+public final class RaycastService {
+
+    public static final RaycastService INSTANCE = new RaycastService();
+
+    private static final int PRECISION = 64;
+    private static final int MAX_STEPS = 200; // Same limit as World#rayTraceBlocks
+    private static final RayTraceResult NO_HIT = new RayTraceResult(RayTraceResult.Type.MISS, Vec3d.ZERO, EnumFacing.UP, BlockPos.ORIGIN);
+
+    private final Map<Ray, RayTraceResult> results = new HashMap<>();
+    private final Ray probe = new Ray();
+    private final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+    private World world;
+    private long worldTime;
+
+    private long lookups;
+    private long traced;
+
+    private RaycastService() {
+    }
+
+    /**
+     * Forgets every result, as any of them could have passed through the changed blocks. Called from the client's
+     * chunks whenever a block in them changes or they are loaded.
+     */
+    public void onBlocksChanged() {
+        results.clear();
+    }
+
+    /**
+     * @return whether nothing solid is between the two positions; what {@code canEntityBeSeen} checks
+     */
+    public boolean isVisible(World world, double startX, double startY, double startZ, double endX, double endY, double endZ) {
+        return trace(world, startX, startY, startZ, endX, endY, endZ, false, true, false) == null;
+    }
+
+    public RayTraceResult trace(World world, Vec3d start, Vec3d end, boolean stopOnLiquid, boolean ignoreBlockWithoutBoundingBox, boolean returnLastUncollidableBlock) {
+        return trace(world, start.x, start.y, start.z, end.x, end.y, end.z, stopOnLiquid, ignoreBlockWithoutBoundingBox, returnLastUncollidableBlock);
+    }
+
+    /**
+     * @return the first block hit between the two positions, or null if there is none. With
+     * {@code returnLastUncollidableBlock}, a ray that hits nothing gives a {@link RayTraceResult.Type#MISS} where it
+     * entered the last block it passed through that couldn't be hit, if there was one.
+     */
+    public RayTraceResult trace(World world, double startX, double startY, double startZ, double endX, double endY, double endZ,
+                                boolean stopOnLiquid, boolean ignoreBlockWithoutBoundingBox, boolean returnLastUncollidableBlock) {
+        if (world != this.world || world.getTotalWorldTime() != worldTime) {
+            results.clear();
+            this.world = world;
+            worldTime = world.getTotalWorldTime();
+        }
+        lookups++;
+        int flags = (stopOnLiquid ? 1 : 0) | (ignoreBlockWithoutBoundingBox ? 2 : 0) | (returnLastUncollidableBlock ? 4 : 0);
+        RayTraceResult result = results.get(probe.set(startX, startY, startZ, endX, endY, endZ, flags));
+        if (result == null) {
+            traced++;
+            result = walk(world, startX, startY, startZ, endX, endY, endZ, stopOnLiquid, ignoreBlockWithoutBoundingBox, returnLastUncollidableBlock);
+            results.put(probe.copy(), result == null ? NO_HIT : result);
+        }
+        return result == NO_HIT ? null : result;
+    }
+
+    /**
+     * Traces {@code count} rays at once
+     *
+     * @param rays    start x, y, z and end x, y, z of every ray, one after the other
+     * @param results receives every ray's result, in the same order
+     */
+    public void traceAll(World world, double[] rays, int count, boolean stopOnLiquid, boolean ignoreBlockWithoutBoundingBox, boolean returnLastUncollidableBlock, RayTraceResult[] results) {
+        for (int i = 0; i < count; i++) {
+            int o = i * 6;
+            results[i] = trace(world, rays[o], rays[o + 1], rays[o + 2], rays[o + 3], rays[o + 4], rays[o + 5], stopOnLiquid, ignoreBlockWithoutBoundingBox, returnLastUncollidableBlock);
+        }
+    }
+
+    private RayTraceResult walk(World world, double startX, double startY, double startZ, double endX, double endY, double endZ,
+                                boolean stopOnLiquid, boolean ignoreBlockWithoutBoundingBox, boolean returnLastUncollidableBlock) {
+        if (Double.isNaN(startX) || Double.isNaN(startY) || Double.isNaN(startZ) || Double.isNaN(endX) || Double.isNaN(endY) || Double.isNaN(endZ))
+            return null;
+        int x = MathHelper.floor(startX), y = MathHelper.floor(startY), z = MathHelper.floor(startZ);
+        int lastX = MathHelper.floor(endX), lastY = MathHelper.floor(endY), lastZ = MathHelper.floor(endZ);
+        double dx = endX - startX, dy = endY - startY, dz = endZ - startZ;
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        // How far along the ray (0 to 1) one block is on each axis, and where the next block boundary is
+        double deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : 1 / Math.abs(dx);
+        double deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : 1 / Math.abs(dy);
+        double deltaZ = stepZ == 0 ? Double.POSITIVE_INFINITY : 1 / Math.abs(dz);
+        double nextX = stepX == 0 ? Double.POSITIVE_INFINITY : (stepX > 0 ? x + 1 - startX : startX - x) * deltaX;
+        double nextY = stepY == 0 ? Double.POSITIVE_INFINITY : (stepY > 0 ? y + 1 - startY : startY - y) * deltaY;
+        double nextZ = stepZ == 0 ? Double.POSITIVE_INFINITY : (stepZ > 0 ? z + 1 - startZ : startZ - z) * deltaZ;
+
+        Vec3d start = null, end = null; // Only needed for blocks that could be hit
+        // The last block passed through that couldn't be hit, and where and through which face the ray entered it
+        boolean missed = false;
+        int missX = 0, missY = 0, missZ = 0;
+        double missT = 0;
+        EnumFacing missFacing = null;
+        double enteredT = 0;
+        EnumFacing entered = null;
+        for (int step = 0; step <= MAX_STEPS; step++) {
+            IBlockState state = world.getBlockState(pos.setPos(x, y, z));
+            // Like vanilla, portals count as hittable after the first block even though they have no bounding box
+            if (!ignoreBlockWithoutBoundingBox || (step > 0 && state.getMaterial() == Material.PORTAL)
+                    || state.getCollisionBoundingBox(world, pos) != Block.NULL_AABB) {
+                if (state.getBlock().canCollideCheck(state, stopOnLiquid)) {
+                    if (start == null) {
+                        start = new Vec3d(startX, startY, startZ);
+                        end = new Vec3d(endX, endY, endZ);
+                    }
+                    RayTraceResult hit = state.collisionRayTrace(world, pos, start, end);
+                    if (hit != null) return new RayTraceResult(hit.hitVec, hit.sideHit, pos.toImmutable()); // Not our mutable position
+                } else if (step > 0) {
+                    missed = true;
+                    missX = x;
+                    missY = y;
+                    missZ = z;
+                    missT = enteredT;
+                    missFacing = entered;
+                }
+            }
+            if (x == lastX && y == lastY && z == lastZ) break;
+            if (nextX < nextY && nextX < nextZ) {
+                if (nextX > 1) break;
+                x += stepX;
+                enteredT = nextX;
+                entered = stepX > 0 ? EnumFacing.WEST : EnumFacing.EAST;
+                nextX += deltaX;
+            } else if (nextY < nextZ) {
+                if (nextY > 1) break;
+                y += stepY;
+                enteredT = nextY;
+                entered = stepY > 0 ? EnumFacing.DOWN : EnumFacing.UP;
+                nextY += deltaY;
+            } else {
+                if (nextZ > 1) break;
+                z += stepZ;
+                enteredT = nextZ;
+                entered = stepZ > 0 ? EnumFacing.NORTH : EnumFacing.SOUTH;
+                nextZ += deltaZ;
+            }
+        }
+        if (!returnLastUncollidableBlock || !missed) return null;
+        return new RayTraceResult(RayTraceResult.Type.MISS, new Vec3d(startX + dx * missT, startY + dy * missT, startZ + dz * missT), missFacing, new BlockPos(missX, missY, missZ));
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getTraced() {
+        return traced;
+    }
+
+    public void resetCounters() {
+        lookups = 0;
+        traced = 0;
+    }
+
+    /**
+     * A ray's rounded endpoints and flags. Only the probe is ever changed; keys in the map are copies of it.
+     */
+    private static final class Ray {
+        private int startX, startY, startZ, endX, endY, endZ, flags;
+
+        private Ray set(double startX, double startY, double startZ, double endX, double endY, double endZ, int flags) {
+            this.startX = MathHelper.floor(startX * PRECISION);
+            this.startY = MathHelper.floor(startY * PRECISION);
+            this.startZ = MathHelper.floor(startZ * PRECISION);
+            this.endX = MathHelper.floor(endX * PRECISION);
+            this.endY = MathHelper.floor(endY * PRECISION);
+            this.endZ = MathHelper.floor(endZ * PRECISION);
+            this.flags = flags;
+            return this;
+        }
+
+        private Ray copy() {
+            Ray ray = new Ray();
+            ray.startX = startX;
+            ray.startY = startY;
+            ray.startZ = startZ;
+            ray.endX = endX;
+            ray.endY = endY;
+            ray.endZ = endZ;
+            ray.flags = flags;
+            return ray;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Ray)) return false;
+            Ray ray = (Ray) o;
+            return startX == ray.startX && startY == ray.startY && startZ == ray.startZ
+                    && endX == ray.endX && endY == ray.endY && endZ == ray.endZ && flags == ray.flags;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = flags;
+            hash = 31 * hash + startX;
+            hash = 31 * hash + startY;
+            hash = 31 * hash + startZ;
+            hash = 31 * hash + endX;
+            hash = 31 * hash + endY;
+            hash = 31 * hash + endZ;
+            return hash;
+        }
+    }
+
+}
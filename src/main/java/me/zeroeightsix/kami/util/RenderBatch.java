@@ -0,0 +1,222 @@
+package me.zeroeightsix.kami.util;
+
+import net.minecraft.util.math.BlockPos;
+import org.lwjgl.opengl.GL11;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects the world geometry modules draw during a frame, so it can be drawn with a few draw calls at the end instead
+ * of one (plus a round of GL state changes) per module.
+ * <p>
+ * Geometry is grouped into {@link Layer}s by everything that needs different GL state: primitive, depth testing and
+ * line width. Positions are stored relative to the camera, as floats. Nothing here touches GL: the layers are handed to
+ * a {@link Drawer} on {@link #flush(Drawer)}, which is {@link KamiTessellator#drawBatch} in game.
+ */
+public class RenderBatch {
+
+    private final List<Layer> layers = new ArrayList<>();
+    private double originX, originY, originZ;
+
+    /**
+     * Starts a new frame, with positions relative to the given camera position
+     */
+    public void begin(double originX, double originY, double originZ) {
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        for (Layer layer : layers) layer.clear();
+    }
+
+    /**
+     * Draws the layers, depth tested ones first so geometry drawn through walls ends up on top, and empties them
+     */
+    public void flush(Drawer drawer) {
+        layers.sort(LAYER_ORDER);
+        for (Layer layer : layers) {
+            if (layer.vertices == 0) continue;
+            drawer.draw(layer);
+            layer.clear();
+        }
+    }
+
+    public boolean isEmpty() {
+        for (Layer layer : layers)
+            if (layer.vertices != 0) return false;
+        return true;
+    }
+
+    public List<Layer> getLayers() {
+        return layers;
+    }
+
+    public void box(BlockPos pos, int argb, int sides) {
+        box(pos.x, pos.y, pos.z, 1, 1, 1, argb, sides, false);
+    }
+
+    /**
+     * Adds the given faces (see {@link GeometryMasks.Quad}) of a box
+     */
+    public void box(double x, double y, double z, double w, double h, double d, int argb, int sides, boolean depth) {
+        Layer l = layer(Primitive.QUADS, depth, 1);
+        float x0 = (float) (x - originX), y0 = (float) (y - originY), z0 = (float) (z - originZ);
+        float x1 = x0 + (float) w, y1 = y0 + (float) h, z1 = z0 + (float) d;
+        // Same winding as KamiTessellator#drawBox
+        if ((sides & GeometryMasks.Quad.DOWN) != 0) l.quad(x1, y0, z0, x1, y0, z1, x0, y0, z1, x0, y0, z0, argb);
+        if ((sides & GeometryMasks.Quad.UP) != 0) l.quad(x1, y1, z0, x0, y1, z0, x0, y1, z1, x1, y1, z1, argb);
+        if ((sides & GeometryMasks.Quad.NORTH) != 0) l.quad(x1, y0, z0, x0, y0, z0, x0, y1, z0, x1, y1, z0, argb);
+        if ((sides & GeometryMasks.Quad.SOUTH) != 0) l.quad(x0, y0, z1, x1, y0, z1, x1, y1, z1, x0, y1, z1, argb);
+        if ((sides & GeometryMasks.Quad.WEST) != 0) l.quad(x0, y0, z0, x0, y0, z1, x0, y1, z1, x0, y1, z0, argb);
+        if ((sides & GeometryMasks.Quad.EAST) != 0) l.quad(x1, y0, z1, x1, y0, z0, x1, y1, z0, x1, y1, z1, argb);
+    }
+
+    /**
+     * Adds the given edges (see {@link GeometryMasks.Line}) of a box
+     */
+    public void outline(double x, double y, double z, double w, double h, double d, int argb, int edges, float lineWidth, boolean depth) {
+        Layer l = layer(Primitive.LINES, depth, lineWidth);
+        float x0 = (float) (x - originX), y0 = (float) (y - originY), z0 = (float) (z - originZ);
+        float x1 = x0 + (float) w, y1 = y0 + (float) h, z1 = z0 + (float) d;
+        if (has(edges, GeometryMasks.Line.DOWN_WEST)) l.line(x0, y0, z0, x0, y0, z1, argb);
+        if (has(edges, GeometryMasks.Line.UP_WEST)) l.line(x0, y1, z0, x0, y1, z1, argb);
+        if (has(edges, GeometryMasks.Line.DOWN_EAST)) l.line(x1, y0, z0, x1, y0, z1, argb);
+        if (has(edges, GeometryMasks.Line.UP_EAST)) l.line(x1, y1, z0, x1, y1, z1, argb);
+        if (has(edges, GeometryMasks.Line.DOWN_NORTH)) l.line(x0, y0, z0, x1, y0, z0, argb);
+        if (has(edges, GeometryMasks.Line.UP_NORTH)) l.line(x0, y1, z0, x1, y1, z0, argb);
+        if (has(edges, GeometryMasks.Line.DOWN_SOUTH)) l.line(x0, y0, z1, x1, y0, z1, argb);
+        if (has(edges, GeometryMasks.Line.UP_SOUTH)) l.line(x0, y1, z1, x1, y1, z1, argb);
+        if (has(edges, GeometryMasks.Line.NORTH_WEST)) l.line(x0, y0, z0, x0, y1, z0, argb);
+        if (has(edges, GeometryMasks.Line.NORTH_EAST)) l.line(x1, y0, z0, x1, y1, z0, argb);
+        if (has(edges, GeometryMasks.Line.SOUTH_WEST)) l.line(x0, y0, z1, x0, y1, z1, argb);
+        if (has(edges, GeometryMasks.Line.SOUTH_EAST)) l.line(x1, y0, z1, x1, y1, z1, argb);
+    }
+
+    /**
+     * Adds a line between two world positions
+     */
+    public void line(double x1, double y1, double z1, double x2, double y2, double z2, int argb, float lineWidth, boolean depth) {
+        layer(Primitive.LINES, depth, lineWidth).line(
+                (float) (x1 - originX), (float) (y1 - originY), (float) (z1 - originZ),
+                (float) (x2 - originX), (float) (y2 - originY), (float) (z2 - originZ), argb);
+    }
+
+    private static boolean has(int edges, int edge) {
+        return (edges & edge) == edge; // Edge masks are two face bits
+    }
+
+    private Layer layer(Primitive primitive, boolean depth, float lineWidth) {
+        for (Layer layer : layers)
+            if (layer.primitive == primitive && layer.depth == depth && layer.lineWidth == lineWidth) return layer;
+        Layer layer = new Layer(primitive, depth, lineWidth);
+        layers.add(layer);
+        return layer;
+    }
+
+    private static final Comparator<Layer> LAYER_ORDER = Comparator
+            .comparing((Layer layer) -> !layer.depth)
+            .thenComparing(layer -> layer.primitive)
+            .thenComparingDouble(layer -> layer.lineWidth);
+
+    public enum Primitive {
+        QUADS(GL11.GL_QUADS), LINES(GL11.GL_LINES);
+
+        private final int glMode;
+
+        Primitive(int glMode) {
+            this.glMode = glMode;
+        }
+
+        public int getGlMode() {
+            return glMode;
+        }
+    }
+
+    /**
+     * Draws a layer's vertices. Only valid during the call.
+     */
+    public interface Drawer {
+        void draw(Layer layer);
+    }
+
+    /**
+     * Geometry sharing the same GL state, as parallel arrays: three position floats and one ARGB colour per vertex
+     */
+    public static final class Layer {
+        private final Primitive primitive;
+        private final boolean depth;
+        private final float lineWidth;
+
+        private float[] positions = new float[3 * 256];
+        private int[] colours = new int[256];
+        private int vertices;
+
+        private Layer(Primitive primitive, boolean depth, float lineWidth) {
+            this.primitive = primitive;
+            this.depth = depth;
+            this.lineWidth = lineWidth;
+        }
+
+        public Primitive getPrimitive() {
+            return primitive;
+        }
+
+        public boolean isDepthTested() {
+            return depth;
+        }
+
+        public float getLineWidth() {
+            return lineWidth;
+        }
+
+        public int getVertexCount() {
+            return vertices;
+        }
+
+        public float getX(int vertex) {
+            return positions[vertex * 3];
+        }
+
+        public float getY(int vertex) {
+            return positions[vertex * 3 + 1];
+        }
+
+        public float getZ(int vertex) {
+            return positions[vertex * 3 + 2];
+        }
+
+        public int getColour(int vertex) {
+            return colours[vertex];
+        }
+
+        private void clear() {
+            vertices = 0;
+        }
+
+        private void line(float x1, float y1, float z1, float x2, float y2, float z2, int argb) {
+            vertex(x1, y1, z1, argb);
+            vertex(x2, y2, z2, argb);
+        }
+
+        private void quad(float ax, float ay, float az, float bx, float by, float bz, float cx, float cy, float cz, float dx, float dy, float dz, int argb) {
+            vertex(ax, ay, az, argb);
+            vertex(bx, by, bz, argb);
+            vertex(cx, cy, cz, argb);
+            vertex(dx, dy, dz, argb);
+        }
+
+        private void vertex(float x, float y, float z, int argb) {
+            if (vertices == colours.length) {
+                colours = Arrays.copyOf(colours, vertices * 2);
+                positions = Arrays.copyOf(positions, vertices * 6);
+            }
+            positions[vertices * 3] = x;
+            positions[vertices * 3 + 1] = y;
+            positions[vertices * 3 + 2] = z;
+            colours[vertices++] = argb;
+        }
+    }
+
+}
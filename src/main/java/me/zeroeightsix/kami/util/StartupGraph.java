@@ -0,0 +1,220 @@
+package me.zeroeightsix.kami.util;
+
+import me.zeroeightsix.kami.KamiMod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A dependency graph of named startup stages.
+ * <p>
+ * A stage runs as soon as all of its dependencies have finished. Main thread stages run on the thread calling
+ * {@link #run()}, so anything touching GL or Minecraft state belongs there. Other stages run on a small pool of daemon
+ * threads. {@link #run()} returns once every stage except the background ones has finished, and logs how long each
+ * stage took.
+ * <p>
+ * A stage that fails is logged and the stages depending on it are skipped, but the rest of startup carries on, like a
+ * subsystem failing on its own did before.
+ */
+public class StartupGraph {
+
+    private static final int THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private final String name;
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    private final BlockingQueue<Stage> mainQueue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private ThreadPoolExecutor executor;
+    private long startTime;
+
+    /**
+     * Wakes the main thread up once nothing is pending anymore
+     */
+    private static final Stage DONE = new Stage("done", Mode.MAIN, () -> {}, new String[0]);
+
+    public StartupGraph(String name) {
+        this.name = name;
+    }
+
+    public StartupGraph mainThread(String name, Runnable task, String... dependencies) {
+        return add(new Stage(name, Mode.MAIN, task, dependencies));
+    }
+
+    public StartupGraph async(String name, Runnable task, String... dependencies) {
+        return add(new Stage(name, Mode.ASYNC, task, dependencies));
+    }
+
+    /**
+     * Like {@link #async(String, Runnable, String...)}, but {@link #run()} doesn't wait for it. Its time is logged
+     * separately once it finishes.
+     */
+    public StartupGraph background(String name, Runnable task, String... dependencies) {
+        return add(new Stage(name, Mode.BACKGROUND, task, dependencies));
+    }
+
+    private StartupGraph add(Stage stage) {
+        if (stages.containsKey(stage.name)) throw new IllegalArgumentException("Duplicate startup stage " + stage.name);
+        stages.put(stage.name, stage);
+        return this;
+    }
+
+    public void run() {
+        link();
+
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name + " startup #" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+
+        startTime = System.nanoTime();
+        for (Stage stage : stages.values())
+            if (stage.mode != Mode.BACKGROUND) pending.incrementAndGet();
+        for (Stage stage : stages.values())
+            if (stage.remaining.get() == 0) schedule(stage);
+
+        while (pending.get() > 0) {
+            Stage stage;
+            try {
+                stage = mainQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while starting " + name, e);
+            }
+            if (stage == DONE) break;
+            execute(stage);
+        }
+        long total = System.nanoTime() - startTime;
+
+        report(total);
+    }
+
+    /**
+     * Resolves dependencies and makes sure the graph can actually be run
+     */
+    private void link() {
+        for (Stage stage : stages.values()) {
+            for (String dependency : stage.dependencies) {
+                Stage parent = stages.get(dependency);
+                if (parent == null)
+                    throw new IllegalArgumentException("Startup stage " + stage.name + " depends on unknown stage " + dependency);
+                if (parent.mode == Mode.BACKGROUND && stage.mode != Mode.BACKGROUND)
+                    throw new IllegalArgumentException("Startup stage " + stage.name + " can't depend on background stage " + dependency);
+                parent.dependents.add(stage);
+            }
+            stage.remaining.set(stage.dependencies.length);
+        }
+
+        // Kahn's algorithm: if not every stage can be visited, there's a cycle
+        Map<Stage, Integer> inDegree = new LinkedHashMap<>();
+        List<Stage> ready = new ArrayList<>();
+        for (Stage stage : stages.values()) {
+            inDegree.put(stage, stage.dependencies.length);
+            if (stage.dependencies.length == 0) ready.add(stage);
+        }
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            Stage stage = ready.remove(ready.size() - 1);
+            visited++;
+            for (Stage dependent : stage.dependents)
+                if (inDegree.merge(dependent, -1, Integer::sum) == 0) ready.add(dependent);
+        }
+        if (visited != stages.size()) throw new IllegalArgumentException("Startup graph of " + name + " contains a cycle");
+    }
+
+    private void schedule(Stage stage) {
+        if (stage.mode == Mode.MAIN) mainQueue.add(stage);
+        else executor.execute(() -> execute(stage));
+    }
+
+    private void execute(Stage stage) {
+        stage.thread = Thread.currentThread().getName();
+        stage.start = System.nanoTime();
+        if (stage.skipped == null) {
+            try {
+                stage.task.run();
+            } catch (Throwable t) {
+                t.printStackTrace();
+                System.err.println("Startup stage " + stage.name + " failed! Err: " + t.getClass().getSimpleName() + ", message: " + t.getMessage());
+                stage.failure = t;
+            }
+        }
+        stage.end = System.nanoTime();
+
+        for (Stage dependent : stage.dependents) {
+            if (stage.failure != null || stage.skipped != null)
+                dependent.skipped = stage.skipped != null ? stage.skipped : stage.name;
+            if (dependent.remaining.decrementAndGet() == 0) schedule(dependent);
+        }
+
+        if (stage.mode == Mode.BACKGROUND) {
+            KamiMod.log.info(name + " background stage " + describe(stage));
+        } else if (pending.decrementAndGet() == 0) {
+            mainQueue.add(DONE);
+        }
+    }
+
+    private void report(long total) {
+        long sum = 0;
+        StringBuilder builder = new StringBuilder(name + " started in " + millis(total) + " ms");
+        for (Stage stage : stages.values()) {
+            if (stage.mode == Mode.BACKGROUND) continue;
+            sum += stage.end - stage.start;
+            builder.append("\n  ").append(describe(stage));
+        }
+        builder.append("\n  (").append(millis(sum)).append(" ms of work on ").append(THREADS).append(" worker threads + main)");
+        for (Stage stage : stages.values())
+            if (stage.mode == Mode.BACKGROUND && stage.end == 0)
+                builder.append("\n  ").append(stage.name).append(": still running in the background");
+        KamiMod.log.info(builder.toString());
+    }
+
+    private String describe(Stage stage) {
+        String result = String.format("%-10s %6d ms (at +%d ms on %s)", stage.name, millis(stage.end - stage.start), millis(stage.start - startTime), stage.thread);
+        if (stage.failure != null) result += " FAILED";
+        else if (stage.skipped != null) result += " skipped, " + stage.skipped + " failed";
+        return result;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private enum Mode {
+        MAIN, ASYNC, BACKGROUND
+    }
+
+    private static class Stage {
+        private final String name;
+        private final Mode mode;
+        private final Runnable task;
+        private final String[] dependencies;
+        private final List<Stage> dependents = new ArrayList<>();
+        private final AtomicInteger remaining = new AtomicInteger();
+
+        private volatile long start;
+        private volatile long end;
+        private volatile String thread;
+        private volatile Throwable failure;
+        private volatile String skipped;
+
+        private Stage(String name, Mode mode, Runnable task, String[] dependencies) {
+            this.name = name;
+            this.mode = mode;
+            this.task = task;
+            this.dependencies = Arrays.copyOf(dependencies, dependencies.length);
+        }
+    }
+
+}
@@ -59,6 +59,8 @@ public class TrajectoryCalculator {
      * of them is {@link net.minecraft.entity.projectile.EntityThrowable}
      */
     public static final class FlightPath {
+        private static final int CULL_PIECES = 8;
+
         private EntityLivingBase shooter;
         public Vec3d position;
         private Vec3d motion;
@@ -138,6 +140,35 @@ public class TrajectoryCalculator {
             this.setPosition(this.position);
         }
 
+        /**
+         * Checks whether any part of the path could be on screen, without simulating it. The path stays in the vertical
+         * plane it's thrown in, can't get further than its speed allows with air drag, and ends at the bottom of the
+         * world, so it lies within a few boxes along that plane.
+         *
+         * @return false if the path is sure to be off screen
+         */
+        public boolean mayBeVisible() {
+            double cameraX = Wrapper.getMinecraft().getRenderManager().renderPosX;
+            double cameraY = Wrapper.getMinecraft().getRenderManager().renderPosY;
+            double cameraZ = Wrapper.getMinecraft().getRenderManager().renderPosZ;
+            double horizontal = Math.sqrt(this.motion.x * this.motion.x + this.motion.z * this.motion.z);
+            // Drag takes a hundredth of the speed every tick, so the steps add up to at most a hundred times the first one
+            double reach = horizontal * 100 + 1;
+            // Rising slows by at least the gravity every tick
+            double rise = this.motion.y > 0 ? this.motion.y * (this.motion.y / this.getGravityVelocity() + 1) : 0;
+            double minY = -1 - cameraY, maxY = this.position.y + rise + 1 - cameraY;
+            double dirX = horizontal == 0 ? 0 : this.motion.x / horizontal;
+            double dirZ = horizontal == 0 ? 0 : this.motion.z / horizontal;
+            for (int i = 0; i < CULL_PIECES; i++) {
+                double from = reach * i / CULL_PIECES, to = reach * (i + 1) / CULL_PIECES;
+                double x1 = this.position.x + dirX * from - cameraX, x2 = this.position.x + dirX * to - cameraX;
+                double z1 = this.position.z + dirZ * from - cameraZ, z2 = this.position.z + dirZ * to - cameraZ;
+                if (Culling.isVisible(Math.min(x1, x2) - 1, minY, Math.min(z1, z2) - 1, Math.max(x1, x2) + 1, maxY, Math.max(z1, z2) + 1))
+                    return true;
+            }
+            return false;
+        }
+
         /**
          * Check if our path collides with an entity.
          *
@@ -0,0 +1,134 @@
+package me.zeroeightsix.kami.util;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import java.util.function.Predicate;
+
+/**
+ * Block lookups for code that probes many blocks close together, without a {@code BlockPos} per probe.
+ * <p>
+ * The last chunk looked up is remembered, so consecutive probes in the same chunk go straight to its sections instead
+ * of through the chunk provider. Blocks in chunks that aren't loaded read as air, like they do through
+ * {@link World#getBlockState}. On top of single lookups there are bulk probes: {@link #anyMatch any block in a box},
+ * {@link #findInColumn the first block in a column} and {@link #neighbourMask which neighbours} match.
+ * <p>
+ * Main thread only.
+ */
+public final class WorldQuery {
+
+    private static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+    private static World world;
+    private static Chunk chunk;
+    private static ExtendedBlockStorage[] sections;
+
+    private static long lookups;
+    private static long chunkHits;
+
+    private WorldQuery() {
+    }
+
+    /**
+     * Forgets the remembered chunk if the world changed, so a world we left isn't kept around. Called at the end of
+     * every client tick.
+     */
+    public static void update(World world) {
+        if (world == WorldQuery.world) return;
+        WorldQuery.world = null;
+        chunk = null;
+        sections = null;
+    }
+
+    public static IBlockState getBlockState(World world, int x, int y, int z) {
+        if (y < 0 || y >= 256) return AIR;
+        ExtendedBlockStorage[] sections = sections(world, x >> 4, z >> 4);
+        if (sections == null) return AIR;
+        ExtendedBlockStorage section = sections[y >> 4];
+        return section == Chunk.NULL_BLOCK_STORAGE ? AIR : section.get(x & 15, y & 15, z & 15);
+    }
+
+    public static Block getBlock(World world, int x, int y, int z) {
+        return getBlockState(world, x, y, z).getBlock();
+    }
+
+    /**
+     * @return whether any block from min to max (inclusive) matches
+     */
+    public static boolean anyMatch(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, Predicate<IBlockState> predicate) {
+        // x and z on the outside, so every column stays in one chunk
+        for (int x = minX; x <= maxX; x++)
+            for (int z = minZ; z <= maxZ; z++)
+                for (int y = minY; y <= maxY; y++)
+                    if (predicate.test(getBlockState(world, x, y, z))) return true;
+        return false;
+    }
+
+    /**
+     * @return whether any block the box reaches into matches
+     */
+    public static boolean anyMatch(World world, AxisAlignedBB box, Predicate<IBlockState> predicate) {
+        return anyMatch(world, MathHelper.floor(box.minX), MathHelper.floor(box.minY), MathHelper.floor(box.minZ),
+                MathHelper.ceil(box.maxX) - 1, MathHelper.ceil(box.maxY) - 1, MathHelper.ceil(box.maxZ) - 1, predicate);
+    }
+
+    /**
+     * Walks the column from {@code fromY} to {@code toY} (inclusive, either direction)
+     *
+     * @return the height of the first matching block, or -1 if none does
+     */
+    public static int findInColumn(World world, int x, int z, int fromY, int toY, Predicate<IBlockState> predicate) {
+        int step = toY >= fromY ? 1 : -1;
+        for (int y = fromY; y != toY + step; y += step)
+            if (predicate.test(getBlockState(world, x, y, z))) return y;
+        return -1;
+    }
+
+    /**
+     * @return a mask with bit {@code 1 << facing.getIndex()} set for every neighbour that matches
+     */
+    public static int neighbourMask(World world, int x, int y, int z, Predicate<IBlockState> predicate) {
+        int mask = 0;
+        for (EnumFacing facing : EnumFacing.VALUES) {
+            if (predicate.test(getBlockState(world, x + facing.getXOffset(), y + facing.getYOffset(), z + facing.getZOffset())))
+                mask |= 1 << facing.getIndex();
+        }
+        return mask;
+    }
+
+    private static ExtendedBlockStorage[] sections(World world, int chunkX, int chunkZ) {
+        lookups++;
+        if (world != WorldQuery.world || chunk == null || chunk.x != chunkX || chunk.z != chunkZ || !chunk.isLoaded()) {
+            WorldQuery.world = world;
+            chunk = world.getChunkProvider().getLoadedChunk(chunkX, chunkZ);
+            sections = chunk == null ? null : chunk.getBlockStorageArray();
+        } else {
+            chunkHits++;
+        }
+        return sections;
+    }
+
+    public static long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * @return how many lookups found their chunk remembered, instead of going through the chunk provider
+     */
+    public static long getChunkHits() {
+        return chunkHits;
+    }
+
+    public static void resetCounters() {
+        lookups = 0;
+        chunkHits = 0;
+    }
+
+}